@@ -0,0 +1,69 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package bench;
+
+import game.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Move making on the Board the GUI uses, and on the bare BitBoard under it
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private Board board;
+    private int state;
+    private int jump;
+
+    @Setup
+    public void setup() {
+        board = new Board();
+        board.setEmptyPeg(board.peg(0));
+
+        state = BitBoard.FULL & ~1;
+        jump = BitBoard.jumpNumber(3, 0);
+    }
+
+    @Benchmark
+    public boolean boardJumpUndo() {
+        boolean jumped = board.jump(3, 0);
+        board.undo();
+        return jumped;
+    }
+
+    @Benchmark
+    public boolean boardHasMovesLeft() {
+        return board.hasMovesLeft();
+    }
+
+    @Benchmark
+    public int bitBoardJumpUndo() {
+        int next = BitBoard.apply(state, jump);
+        return BitBoard.canJump(state, jump) ? BitBoard.apply(next, jump) : next;
+    }
+
+    @Benchmark
+    public boolean bitBoardHasMovesLeft() {
+        return BitBoard.hasMovesLeft(state);
+    }
+}
@@ -0,0 +1,147 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package bench;
+
+import data.*;
+import java.io.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// Loading the solutions dictionary and the lookups done while playing
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DawgBenchmark {
+    private Dawg dawg;
+    private Dawg widest;
+    private DawgCursor cursor;
+    private int[] path;
+    private int lastChild;
+    private byte[] word;
+    private String wordString;
+
+    @Setup
+    public void setup() {
+        dawg = new Dawg(Dictionary.stream());
+
+        // First solution in the dictionary, for the validation benchmarks
+        StringBuilder path = new StringBuilder();
+        Dawg node = dawg;
+        while ( ! node.isTerminal() ) {
+            node = node.child();
+            path.append((char) node.value());
+        }
+        wordString = path.toString();
+        word = new byte[path.length()];
+        for (int index=0; index<word.length; index++) {
+            word[index] = (byte) path.charAt(index);
+        }
+
+        // A cursor at the end of that solution, undo and redo its last jump
+        try {
+            cursor = new DawgCursor(new CompactDawg(Dictionary.stream()));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        this.path = new int[word.length];
+        for (int index=0; index<word.length; index++) {
+            this.path[index] = word[index];
+            cursor.advance(word[index]);
+        }
+
+        // The start with the most first moves, looking up its last child is
+        // the longest sibling walk
+        widest = dawg.child(3);
+        Dawg child = widest.child();
+        while ( child.sibling() != null ) {
+            child = child.sibling();
+        }
+        lastChild = child.value();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Dawg loadDawg() {
+        return new Dawg(Dictionary.stream());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Dawg loadDawgVersion1() {
+        return new Dawg(Dictionary.stream(DawgWriter.VERSION_1));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public CompactDawg loadCompactDawg() throws IOException {
+        return new CompactDawg(Dictionary.stream());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public CompactDawg loadCompactDawgVersion1() throws IOException {
+        return new CompactDawg(Dictionary.stream(DawgWriter.VERSION_1));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MappedDawg loadMappedDawg() throws IOException {
+        return MappedDawg.read(Dictionary.stream());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MappedDawg loadMappedDawgVersion1() throws IOException {
+        return MappedDawg.read(Dictionary.stream(DawgWriter.VERSION_1));
+    }
+
+    @Benchmark
+    public int solutions() {
+        return dawg.child(0).solutions();
+    }
+
+    @Benchmark
+    public int cursorUndo() {
+        cursor.back();
+        cursor.back();
+        int solutions = cursor.solutionsRemaining();
+        cursor.advance(path[path.length - 2]);
+        cursor.advance(path[path.length - 1]);
+        return solutions + cursor.solutionsRemaining();
+    }
+
+    @Benchmark
+    public Dawg childList() {
+        return widest.child(lastChild);
+    }
+
+    @Benchmark
+    public boolean validWordString() {
+        return dawg.validWord(wordString);
+    }
+
+    @Benchmark
+    public boolean validWordBytes() {
+        return dawg.validWord(word, 0, word.length);
+    }
+}
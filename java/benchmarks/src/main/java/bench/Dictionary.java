@@ -0,0 +1,57 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package bench;
+
+import data.*;
+import game.*;
+import java.io.*;
+import solver.*;
+
+// The solutions file is generated by the ant build, so the benchmarks make
+// their own copy in memory with the same solver and starting pegs, in both
+// versions of the file
+final class Dictionary {
+    private static byte[][] bytes = new byte[DawgWriter.VERSION_2 + 1][];
+
+    private Dictionary() { }
+
+    static synchronized byte[] bytes(int version) {
+        if ( bytes[version] == null ) {
+            Solver solver = new Solver();
+            int root = solver.solve(Symmetry.canonicalPegs());
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try {
+                solver.writer().write(os, root, version);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            bytes[version] = os.toByteArray();
+        }
+        return bytes[version];
+    }
+
+    static InputStream stream() {
+        return stream(DawgWriter.VERSION_2);
+    }
+    static InputStream stream(int version) {
+        return new ByteArrayInputStream(bytes(version));
+    }
+}
@@ -0,0 +1,81 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package bench;
+
+import data.*;
+import game.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import solver.*;
+
+// The "Suggest" button, from the start of each game in the dictionary and
+// from the same positions off the dictionary
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HintBenchmark {
+    private Dawg[] starts;
+    private int[] states;
+    private Hints hints;
+
+    @Setup
+    public void setup() {
+        Dawg dawg = new Dawg(Dictionary.stream());
+        starts = new Dawg[5];
+        int count = 0;
+        for (Dawg start=dawg.child(); start!=null; start=start.sibling()) {
+            starts[count++] = start;
+        }
+        starts = java.util.Arrays.copyOf(starts, count);
+
+        states = new int[count];
+        for (int index=0; index<count; index++) {
+            states[index] = BitBoard.FULL & ~(1 << starts[index].value());
+        }
+        hints = new Hints();
+    }
+
+    @Benchmark
+    public int dawgHint() {
+        int found = 0;
+        for (int index=0; index<starts.length; index++) {
+            found += Hints.best(starts[index], 1).length;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int stateHint() {
+        int found = 0;
+        for (int index=0; index<states.length; index++) {
+            found += hints.best(states[index], 1).length;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Hints hintTables() {
+        return new Hints(hints.table());
+    }
+}
@@ -0,0 +1,50 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package bench;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import solver.*;
+
+// Solving the whole board, comparable with 'time ./peggame -t' from ../../src
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    private static final int[] EMPTY_PEGS = {0, 1, 2, 3, 4};
+
+    @Benchmark
+    public TranspositionTable transpositionTable() {
+        return new TranspositionTable();
+    }
+
+    @Benchmark
+    public int solver() {
+        return new Solver().solve(EMPTY_PEGS);
+    }
+
+    @Benchmark
+    public int parallelSolver() {
+        return new ParallelSolver().solve(EMPTY_PEGS);
+    }
+}
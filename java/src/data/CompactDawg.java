@@ -0,0 +1,116 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+import java.io.*;
+import java.nio.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+// Same dictionary as Dawg, but kept in parallel primitive arrays instead of one
+// object per node.  Reads either version of the file.
+public class CompactDawg extends IndexedDawg {
+    // How many nodes to read between progress reports
+    private static final int PROGRESS_STEP = 1024;
+
+    private char[] values;
+    private int[] siblings;
+    private int[] children;
+    private boolean[] terminals;
+    private int count;
+
+    public CompactDawg(InputStream is) throws IOException {
+        this(is, null);
+    }
+    public CompactDawg(InputStream is, ProgressListener listener) throws IOException {
+        LittleEndianInputStream in = new LittleEndianInputStream(is);
+
+        // Node count, then four ints per node: value, sibling, child, terminal
+        count = in.readInt();
+        if ( count == PackedDawg.MAGIC ) {
+            unpack(PackedDawg.read(in), listener);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(PackedDawg.rest(in)).order(ByteOrder.LITTLE_ENDIAN);
+        if ( count < 1 || count > buffer.remaining() / 16 ) {
+            throw new EOFException("Dictionary is shorter than its " + count + " nodes");
+        }
+
+        values = new char[count + 1];
+        siblings = new int[count + 1];
+        children = new int[count + 1];
+        terminals = new boolean[count + 1];
+        for (int node=1; node<=count; node++) {
+            values[node] = value(node, buffer.getInt());
+            siblings[node] = buffer.getInt();
+            children[node] = buffer.getInt();
+            terminals[node] = buffer.getInt() > 0;
+            progress(listener, node);
+        }
+    }
+
+    // Load a dictionary on a background thread, see Dawg.load
+    public static CompletableFuture<CompactDawg> load(final InputStream is, final ProgressListener listener) {
+        return CompletableFuture.supplyAsync(new Supplier<CompactDawg>() {
+            public CompactDawg get() {
+                try {
+                    return new CompactDawg(is, listener);
+                } catch (IOException ex) {
+                    throw new CompletionException(ex);
+                }
+            }
+        });
+    }
+
+    private void progress(ProgressListener listener, int node) {
+        if ( listener != null && (node % PROGRESS_STEP == 0 || node == count) ) {
+            listener.progress(node, count);
+        }
+    }
+
+    private void unpack(ByteBuffer packed, ProgressListener listener) throws IOException {
+        count = PackedDawg.count(packed);
+        int[] ints = new int[count + 1];
+        siblings = new int[count + 1];
+        children = new int[count + 1];
+        terminals = new boolean[count + 1];
+        PackedDawg.unpack(packed, ints, terminals, siblings, children, listener);
+
+        values = new char[count + 1];
+        for (int node=1; node<=count; node++) {
+            values[node] = value(node, ints[node]);
+        }
+    }
+
+    // Values are kept as chars, anything wider is refused rather than cut down
+    private static char value(int node, int value) throws IOException {
+        if ( value < Character.MIN_VALUE || value > Character.MAX_VALUE ) {
+            throw new IOException("Dictionary node " + node + " has value " + value + ", beyond a char");
+        }
+        return (char) value;
+    }
+
+    public int size() { return count; }
+
+    public int value(int node) { return values[node]; }
+    public int sibling(int node) { return siblings[node]; }
+    public int child(int node) { return children[node]; }
+    public boolean isTerminal(int node) { return terminals[node]; }
+}
@@ -20,75 +20,126 @@
 package data;
 
 import java.io.*;
+import java.nio.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 import java.util.logging.*;
-import javax.swing.*;
 
 // Dawg structure stores our dictionary
 public class Dawg extends Node<Dawg> {
+    // How many nodes to read between progress reports
+    private static final int PROGRESS_STEP = 1024;
+
+    // Words at or below this node, -1 until counted.  Counted once after
+    // loading.  A Dawg is not changed once it is read, so the counts are only
+    // valid for that frozen graph; a change below a node would leave every
+    // node above it with a stale count.
+    private int solutions = -1;
+
     public Dawg() { super(); }
-    public Dawg(final InputStream is) {
-        init(is);
-    }
-
-    // This could be less elaborate, but when loading large files its helpfull to
-    // have a progress bar
-    protected void init(final InputStream is) {
-
-        // Not really sure how else to access myself from inside the thread
-        final Dawg thisDawg = this;
-        Thread thread = new Thread() {
-            @Override
-            public void run() {
-                // Show a progress bar while we load the file
-                Object message[] = {"Reading Dictionary"};
-                ProgressMonitorInputStream pm = new ProgressMonitorInputStream(null, message, is);
-                final LittleEndianInputStream in = new LittleEndianInputStream(pm);
-
-                // Read in the first integer, which should be the count of nodes in the file
-                int count = 0;
+    public Dawg(InputStream is) {
+        init(is, null);
+    }
+    public Dawg(InputStream is, ProgressListener listener) {
+        init(is, listener);
+    }
+
+    // Load a dictionary on a background thread.  Nothing here touches AWT, so
+    // this works headless; pass a listener to show progress, or null.
+    public static CompletableFuture<Dawg> load(final InputStream is, final ProgressListener listener) {
+        return load(is, listener, ForkJoinPool.commonPool());
+    }
+    public static CompletableFuture<Dawg> load(final InputStream is, final ProgressListener listener,
+            Executor executor) {
+        return CompletableFuture.supplyAsync(new Supplier<Dawg>() {
+            public Dawg get() {
+                Dawg dawg = new Dawg();
                 try {
-                    count = in.readInt();
+                    dawg.read(is, listener);
                 } catch (IOException ex) {
-                    Logger.getLogger(Dawg.class.getName()).log(Level.SEVERE, null, ex);
-                    Thread.currentThread().interrupt();
-                    return;
-                }
-
-                // Create a list of nodes to reference later
-                Dawg[] nodeList = new Dawg[count + 1];
-                nodeList[0] = null;
-                nodeList[1] = thisDawg;
-                int i;
-                for (i = 2; i <= count; i++) {
-                    nodeList[i] = new Dawg();
-                }
-
-                // Read in each node from the file, exit on failure
-                for (i = 1; i <= count; i++) {
-                    try {
-                        nodeList[i].value(in.readInt());
-                        nodeList[i].sibling(nodeList[in.readInt()]);
-                        nodeList[i].child(nodeList[in.readInt()]);
-                        int bool = in.readInt();
-                        if (bool > 0) {
-                            nodeList[i].terminal(true);
-                        }
-                    } catch (IOException ex) {
-                        Logger.getLogger(Dawg.class.getName()).log(Level.SEVERE, null, ex);
-                        Thread.currentThread().interrupt();
-                        return;
-                    }
+                    throw new CompletionException(ex);
                 }
+                return dawg;
             }
-        };
+        }, executor);
+    }
+
+    // Read the dictionary in the calling thread, errors are logged
+    protected void init(InputStream is) {
+        init(is, null);
+    }
+    protected void init(InputStream is, ProgressListener listener) {
         try {
-            thread.start();
-            thread.join();
-        } catch (InterruptedException ex) {
+            read(is, listener);
+        } catch (IOException ex) {
             Logger.getLogger(Dawg.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
 
+    private void read(InputStream is, ProgressListener listener) throws IOException {
+        LittleEndianInputStream in = new LittleEndianInputStream(new BufferedInputStream(is));
+
+        // Read in the first integer, which should be the count of nodes in the
+        // file, unless it starts a version 2 file
+        int count = in.readInt();
+        if ( count == PackedDawg.MAGIC ) {
+            read(PackedDawg.read(in), listener);
+            return;
+        }
+
+        // Create a list of nodes to reference later
+        Dawg[] nodeList = new Dawg[count + 1];
+        nodeList[0] = null;
+        nodeList[1] = this;
+        int i;
+        for (i = 2; i <= count; i++) {
+            nodeList[i] = new Dawg();
+        }
+
+        // Read in each node from the file
+        for (i = 1; i <= count; i++) {
+            nodeList[i].value(in.readInt());
+            nodeList[i].sibling(nodeList[in.readInt()]);
+            nodeList[i].child(nodeList[in.readInt()]);
+            int bool = in.readInt();
+            if (bool > 0) {
+                nodeList[i].terminal(true);
+            }
+
+            if ( listener != null && (i % PROGRESS_STEP == 0 || i == count) ) {
+                listener.progress(i, count);
+            }
+        }
+
+        // Count every node now so solutions() never has to walk a subtree
+        solutions();
+    }
+    private void read(ByteBuffer packed, ProgressListener listener) throws IOException {
+        int count = PackedDawg.count(packed);
+        int[] values = new int[count + 1];
+        boolean[] terminals = new boolean[count + 1];
+        int[] siblings = new int[count + 1];
+        int[] children = new int[count + 1];
+        PackedDawg.unpack(packed, values, terminals, siblings, children, listener);
+
+        Dawg[] nodeList = new Dawg[count + 1];
+        nodeList[1] = this;
+        for (int i = 2; i <= count; i++) {
+            nodeList[i] = new Dawg();
+        }
+
+        for (int i = 1; i <= count; i++) {
+            nodeList[i].value(values[i]);
+            nodeList[i].sibling(nodeList[siblings[i]]);
+            nodeList[i].child(nodeList[children[i]]);
+            if ( terminals[i] ) {
+                nodeList[i].terminal(true);
+            }
+        }
+
+        solutions();
+    }
+
     // Be carefull what you wish for...
     public void printTree() {
         printLevel(this, 0);
@@ -107,7 +158,11 @@ public class Dawg extends Node<Dawg> {
         }
     }
 
+    // Number of words at or below this node, counted once and then cached.
+    // Only valid while the graph is unchanged, see the solutions field.
     public int solutions() {
+        if ( solutions >= 0 ) { return solutions; }
+
         int count = 0;
 
         Dawg nextNode = child();
@@ -117,27 +172,72 @@ public class Dawg extends Node<Dawg> {
         }
 
         if ( isTerminal() ) { count++; }
+        solutions = count;
         return count;
     }
 
-    // Determine if a word exists in this structure
-    public boolean validWord (String word) {
-        return validWordRecurse(word);
+    // Determine if a word exists in this structure.  Every form walks down one
+    // child per character without allocating, so they are safe to call in bulk.
+    public boolean validWord(CharSequence word) {
+        return validWord(word, 0, word.length());
+    }
+    public boolean validWord(CharSequence word, int offset, int length) {
+        Dawg node = this;
+        for (int index=offset; index<offset+length; index++) {
+            node = node.child(word.charAt(index));
+            if ( node == null ) { return false; }
+        }
+        return node.isTerminal();
+    }
+    public boolean validWord(int[] word, int offset, int length) {
+        Dawg node = this;
+        for (int index=offset; index<offset+length; index++) {
+            node = node.child(word[index]);
+            if ( node == null ) { return false; }
+        }
+        return node.isTerminal();
+    }
+    public boolean validWord(byte[] word, int offset, int length) {
+        Dawg node = this;
+        for (int index=offset; index<offset+length; index++) {
+            node = node.child(word[index]);
+            if ( node == null ) { return false; }
+        }
+        return node.isTerminal();
     }
-    public boolean validWordRecurse (String word) {
-        // Recursively determine if this word is valid
 
-        // Out of letters, determine if this node is terminal
-        if ( word.length() == 0 ) {
-            return this.isTerminal();
+    // Reads with absolute gets, the buffer position is left alone
+    public boolean validWord(ByteBuffer word, int offset, int length) {
+        Dawg node = this;
+        for (int index=offset; index<offset+length; index++) {
+            node = node.child(word.get(index));
+            if ( node == null ) { return false; }
         }
+        return node.isTerminal();
+    }
 
-        // Stop right here if this node is childless
-        char childValue = word.charAt(0);
-        if ( ! this.hasChild(childValue) ) { return false; }
+    // Kept for older callers, no longer recursive
+    public boolean validWordRecurse(String word) {
+        return validWord(word, 0, word.length());
+    }
 
-        // Drop the first letter of the string as that was this nodes value
-        String nextWord = word.substring(1);
-        return ((Dawg)this.child(childValue)).validWordRecurse(nextWord);
+    // Check a batch of words packed into one array.  Word n is lengths[n] bytes
+    // starting at offsets[n], its result goes in results[n].  Returns how many
+    // of the words are valid.
+    public int validWords(byte[] words, int[] offsets, int[] lengths, boolean[] results) {
+        int valid = 0;
+        for (int index=0; index<offsets.length; index++) {
+            results[index] = validWord(words, offsets[index], lengths[index]);
+            if ( results[index] ) { valid++; }
+        }
+        return valid;
+    }
+    public int validWords(ByteBuffer words, int[] offsets, int[] lengths, boolean[] results) {
+        int valid = 0;
+        for (int index=0; index<offsets.length; index++) {
+            results[index] = validWord(words, offsets[index], lengths[index]);
+            if ( results[index] ) { valid++; }
+        }
+        return valid;
     }
 }
@@ -0,0 +1,211 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+
+// Builds a minimal DAWG from words added in sorted order, one character per
+// node value, as Dawg.validWord reads them.  Only the path of the last word
+// added can still change.  When the next word leaves that path, the lists
+// below the split are final and get registered with the DawgWriter, which
+// returns the existing node when an identical one was already registered.
+// This is Daciuk's incremental construction for sorted input, so suffixes are
+// shared as they are found and the full trie is never held in memory.
+public class DawgBuilder {
+    private DawgWriter writer;
+
+    // lists.get(depth) holds the children of the last node at depth - 1
+    private List<NodeList> lists;
+    private char[] previous;
+    private int previousLength;
+    private boolean rootTerminal;
+    private int root;
+
+    public DawgBuilder() {
+        this(new DawgWriter());
+    }
+    public DawgBuilder(DawgWriter initWriter) {
+        writer = initWriter;
+        lists = new ArrayList<NodeList>();
+        lists.add(new NodeList());
+        previous = new char[32];
+        previousLength = 0;
+        rootTerminal = false;
+        root = 0;
+    }
+
+    public DawgWriter writer() { return writer; }
+
+    // Add the next word, which must not sort before the last one added
+    public void add(CharSequence word) {
+        if ( root != 0 ) { throw new IllegalStateException("Builder already finished"); }
+
+        int length = word.length();
+        int common = 0;
+        while ( common < length && common < previousLength && word.charAt(common) == previous[common] ) {
+            common++;
+        }
+
+        // Duplicates are ignored, anything out of order is refused
+        if ( common == length && common == previousLength && (length > 0 || rootTerminal) ) { return; }
+        if ( common == length && common < previousLength ||
+                common < length && common < previousLength && word.charAt(common) < previous[common] ) {
+            throw new IllegalArgumentException("Words must be added in sorted order");
+        }
+
+        register(common);
+
+        if ( length == 0 ) {
+            rootTerminal = true;
+        }
+        for (int depth=common; depth<length; depth++) {
+            lists.get(depth).add(word.charAt(depth), depth == length - 1);
+            if ( lists.size() == depth + 1 ) { lists.add(new NodeList()); }
+        }
+
+        if ( previous.length < length ) {
+            previous = Arrays.copyOf(previous, length * 2);
+        }
+        for (int index=common; index<length; index++) {
+            previous[index] = word.charAt(index);
+        }
+        previousLength = length;
+    }
+
+    // Add every word in dawg in sorted order, none may sort before the last
+    // word already added
+    public void add(IndexedDawg dawg) {
+        add(dawg, dawg.root(), new StringBuilder());
+    }
+
+    // Register whatever is left and return the root node, no more words after this
+    public int finish() {
+        if ( root == 0 ) {
+            register(0);
+            root = writer.node(0, rootTerminal, lists.get(0).register(writer), 0);
+        }
+        return root;
+    }
+
+    // Write the finished DAWG in the format read by Dawg.init
+    public void write(OutputStream os) throws IOException {
+        writer.write(os, finish());
+    }
+
+    // Lists below depth can no longer change, hand them to the writer deepest first
+    private void register(int depth) {
+        for (int index=previousLength-1; index>=depth; index--) {
+            NodeList children = lists.get(index + 1);
+            if ( children.size > 0 ) {
+                lists.get(index).lastChild(children.register(writer));
+            }
+        }
+    }
+
+    // Children of one node on the path of the last word, in sorted order
+    private static class NodeList {
+        private int[] values = new int[16];
+        private boolean[] terminals = new boolean[16];
+        private int[] children = new int[16];
+        private int size = 0;
+
+        private void add(int value, boolean terminal) {
+            if ( size == values.length ) {
+                values = Arrays.copyOf(values, size * 2);
+                terminals = Arrays.copyOf(terminals, size * 2);
+                children = Arrays.copyOf(children, size * 2);
+            }
+            values[size] = value;
+            terminals[size] = terminal;
+            children[size] = 0;
+            size++;
+        }
+
+        private void lastChild(int child) {
+            children[size - 1] = child;
+        }
+
+        // Register the list back to front so each node can point at its sibling
+        private int register(DawgWriter writer) {
+            int sibling = 0;
+            for (int index=size-1; index>=0; index--) {
+                sibling = writer.node(values[index], terminals[index], children[index], sibling);
+            }
+            size = 0;
+            return sibling;
+        }
+    }
+
+    // Minimize an existing dictionary file: DawgBuilder <in> <out>
+    // Every word in the file is added again in sorted order.
+    public static void main(String args[]) {
+        if ( args.length != 2 ) {
+            System.err.println("Usage: data.DawgBuilder <in> <out>");
+            System.exit(1);
+        }
+
+        try {
+            IndexedDawg dawg = MappedDawg.map(new File(args[0]));
+            DawgBuilder builder = new DawgBuilder();
+            builder.add(dawg);
+
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(args[1]));
+            try {
+                builder.write(os);
+            } finally {
+                os.close();
+            }
+            System.out.println(args[0] + ": " + dawg.size() + " nodes, " + args[1] + ": " + builder.writer().size() + " nodes");
+        } catch (IOException ex) {
+            Logger.getLogger(DawgBuilder.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+
+    // Add the words at and below node, word holds the values on the way down.
+    // The file's sibling lists need not be in order, so each one is sorted first.
+    private void add(IndexedDawg dawg, int node, StringBuilder word) {
+        if ( dawg.isTerminal(node) ) { add(word); }
+
+        int count = 0;
+        for (int child=dawg.child(node); child!=IndexedDawg.NONE; child=dawg.sibling(child)) {
+            count++;
+        }
+        int[] children = new int[count];
+        int index = 0;
+        for (int child=dawg.child(node); child!=IndexedDawg.NONE; child=dawg.sibling(child)) {
+            // Insertion sort by value, the lists are short
+            int slot = index++;
+            while ( slot > 0 && dawg.value(children[slot - 1]) > dawg.value(child) ) {
+                children[slot] = children[slot - 1];
+                slot--;
+            }
+            children[slot] = child;
+        }
+
+        for (int child : children) {
+            word.append((char) dawg.value(child));
+            add(dawg, child, word);
+            word.setLength(word.length() - 1);
+        }
+    }
+}
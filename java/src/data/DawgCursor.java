@@ -0,0 +1,98 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+import java.util.*;
+
+// A place in a dictionary that moves one letter at a time, for following a
+// game as it is played.  The nodes on the way down are kept on an int stack,
+// so going back a letter is a pop rather than a walk from the root.  Letters
+// that leave the dictionary still go on the stack as NONE, and going back
+// over them returns to where the dictionary was left.
+//
+// advance() walks the children of one node, so it takes a step per child,
+// which on a peg board is at most a few jumps.  back() is a pop and word
+// counts are made once when the cursor is, so both take constant time.
+// Cursors only read the dictionary, so sessions can each have one over the
+// same dictionary once the first has been made.
+public class DawgCursor {
+    private IndexedDawg dawg;
+    private int[] stack;
+    private int depth;          // letters since the root
+
+    public DawgCursor(IndexedDawg initDawg) {
+        dawg = initDawg;
+        stack = new int[32];
+        stack[0] = dawg.root();
+        depth = 0;
+
+        // Count every node now so solutionsRemaining() is a lookup
+        dawg.solutions(dawg.root());
+    }
+
+    public IndexedDawg dawg() { return dawg; }
+
+    // Letters advanced past the root
+    public int depth() { return depth; }
+
+    // Current node, NONE once a letter was not in the dictionary
+    public int node() { return stack[depth]; }
+
+    public boolean inDictionary() { return stack[depth] != IndexedDawg.NONE; }
+
+    // Back to the root
+    public void reset() {
+        depth = 0;
+    }
+
+    // Follow the letter value, returns whether the cursor is still in the
+    // dictionary
+    public boolean advance(int value) {
+        int node = stack[depth];
+        int next = node == IndexedDawg.NONE ? IndexedDawg.NONE : dawg.child(node, value);
+
+        depth++;
+        if ( depth == stack.length ) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[depth] = next;
+        return next != IndexedDawg.NONE;
+    }
+
+    // Undo the last advance, false when already at the root
+    public boolean back() {
+        if ( depth == 0 ) { return false; }
+
+        depth--;
+        return true;
+    }
+
+    // Words still reachable from here, counting a word ending here
+    public int solutionsRemaining() {
+        int node = stack[depth];
+        return node == IndexedDawg.NONE ? 0 : dawg.solutions(node);
+    }
+
+    // Does a word end here
+    public boolean isTerminal() {
+        int node = stack[depth];
+        return node != IndexedDawg.NONE && dawg.isTerminal(node);
+    }
+}
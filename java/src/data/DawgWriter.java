@@ -0,0 +1,212 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.zip.*;
+
+// Writes nodes in the format read by Dawg.init.  Nodes are handed in bottom up
+// and identical (value, terminal, child, sibling) nodes are only stored once,
+// so any shared suffix lists end up shared in the file as well.  Files are
+// written as version 2 (see PackedDawg) unless version 1 is asked for.
+public class DawgWriter {
+    // Four ints per node
+    public static final int VERSION_1 = 1;
+    // Packed nodes with a header and checksum
+    public static final int VERSION_2 = PackedDawg.VERSION;
+
+    private int[] values;
+    private int[] siblings;
+    private int[] children;
+    private boolean[] terminals;
+    private int[] solutions;    // words at or below each node
+    private int[] listSolutions; // words at or below a node and its later siblings
+    private int count;
+
+    private HashMap<Long, Integer> registry;
+
+    public DawgWriter() {
+        values = new int[1024];
+        siblings = new int[1024];
+        children = new int[1024];
+        terminals = new boolean[1024];
+        solutions = new int[1024];
+        listSolutions = new int[1024];
+        count = 0;
+        registry = new HashMap<Long, Integer>();
+    }
+
+    // Return the id of a node with these fields, 0 is reserved for "no node"
+    public int node(int value, boolean terminal, int child, int sibling) {
+        Long key = Long.valueOf(((long)sibling << 36) | ((long)child << 9) | (value << 1) | (terminal ? 1 : 0));
+        Integer id = registry.get(key);
+        if ( id != null ) { return id.intValue(); }
+
+        count++;
+        if ( count == values.length ) {
+            values = Arrays.copyOf(values, count * 2);
+            siblings = Arrays.copyOf(siblings, count * 2);
+            children = Arrays.copyOf(children, count * 2);
+            terminals = Arrays.copyOf(terminals, count * 2);
+            solutions = Arrays.copyOf(solutions, count * 2);
+            listSolutions = Arrays.copyOf(listSolutions, count * 2);
+        }
+        values[count] = value;
+        siblings[count] = sibling;
+        children[count] = child;
+        terminals[count] = terminal;
+
+        // Children and siblings always exist first, so counts are kept as we go
+        solutions[count] = (terminal ? 1 : 0) + listSolutions[child];
+        listSolutions[count] = solutions[count] + listSolutions[sibling];
+
+        registry.put(key, Integer.valueOf(count));
+        return count;
+    }
+
+    // Copy a list from another writer into this one, returning its id here
+    public int copy(DawgWriter other, int node) {
+        return copy(other, node, new int[other.size() + 1]);
+    }
+    private int copy(DawgWriter other, int node, int[] copied) {
+        if ( node == 0 ) { return 0; }
+        if ( copied[node] != 0 ) { return copied[node]; }
+
+        int child = copy(other, other.children[node], copied);
+        int sibling = copy(other, other.siblings[node], copied);
+        copied[node] = node(other.values[node], other.terminals[node], child, sibling);
+        return copied[node];
+    }
+
+    // Copy a list out of a loaded dictionary, sharing every node that can be
+    public int copy(IndexedDawg other, int node) {
+        return copy(other, node, new int[other.size() + 1]);
+    }
+    private int copy(IndexedDawg other, int node, int[] copied) {
+        if ( node == IndexedDawg.NONE ) { return 0; }
+        if ( copied[node] != 0 ) { return copied[node]; }
+
+        int child = copy(other, other.child(node), copied);
+        int sibling = copy(other, other.sibling(node), copied);
+        copied[node] = node(other.value(node), other.isTerminal(node), child, sibling);
+        return copied[node];
+    }
+
+    // Number of distinct nodes handed out so far
+    public int size() { return count; }
+
+    public int value(int node) { return values[node]; }
+    public int sibling(int node) { return siblings[node]; }
+    public int child(int node) { return children[node]; }
+    public boolean isTerminal(int node) { return terminals[node]; }
+    public int solutions(int node) { return solutions[node]; }
+
+    // Write every node reachable from root.  Nodes are numbered in pre-order,
+    // children before siblings, with the root as node 1.
+    public void write(OutputStream os, int root) throws IOException {
+        write(os, root, VERSION_2);
+    }
+    public void write(OutputStream os, int root, int version) throws IOException {
+        int[] order = new int[count + 1];
+        int[] index = new int[count + 1];
+        int written = number(root, order, index, 0);
+
+        if ( version == VERSION_1 ) {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + written * 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(written);
+            for (int i=1; i<=written; i++) {
+                int node = order[i];
+                buffer.putInt(values[node]);
+                buffer.putInt(index[siblings[node]]);
+                buffer.putInt(index[children[node]]);
+                buffer.putInt(terminals[node] ? 1 : 0);
+            }
+            os.write(buffer.array());
+        } else if ( version == VERSION_2 ) {
+            writePacked(os, order, index, written);
+        } else {
+            throw new IllegalArgumentException("Unknown dictionary version " + version);
+        }
+        os.flush();
+    }
+
+    private void writePacked(OutputStream os, int[] order, int[] index, int written) throws IOException {
+        ByteArrayOutputStream nodes = new ByteArrayOutputStream(written * 2);
+        for (int i=1; i<=written; i++) {
+            int node = order[i];
+            int value = values[node];
+            int child = index[children[node]];
+            int sibling = index[siblings[node]];
+
+            int flags = value < PackedDawg.VALUE_FOLLOWS ? value : PackedDawg.VALUE_FOLLOWS;
+            if ( terminals[node] ) { flags |= PackedDawg.TERMINAL; }
+            int kind = PackedDawg.CHILD_NONE;
+            if ( child == i + 1 ) {
+                kind = PackedDawg.CHILD_NEXT;
+            } else if ( child != 0 ) {
+                kind = child < i ? PackedDawg.CHILD_BEFORE : PackedDawg.CHILD_AFTER;
+            }
+            flags |= kind << PackedDawg.CHILD_SHIFT;
+            if ( sibling != 0 ) { flags |= PackedDawg.SIBLING; }
+
+            nodes.write(flags);
+            if ( value >= PackedDawg.VALUE_FOLLOWS ) { writeVarint(nodes, value); }
+            if ( kind >= PackedDawg.CHILD_BEFORE ) { writeVarint(nodes, Math.abs(child - i)); }
+            if ( sibling != 0 ) {
+                int delta = sibling - i;
+                writeVarint(nodes, (delta << 1) ^ (delta >> 31));
+            }
+        }
+
+        byte[] body = nodes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        ByteBuffer header = ByteBuffer.allocate(PackedDawg.HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(PackedDawg.MAGIC);
+        header.putInt(PackedDawg.VERSION);
+        header.putInt(written);
+        header.putInt(body.length);
+        header.putInt((int) crc.getValue());
+        os.write(header.array());
+        os.write(body);
+    }
+    private static void writeVarint(ByteArrayOutputStream os, int value) {
+        while ( (value & ~0x7F) != 0 ) {
+            os.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        os.write(value);
+    }
+    private int number(int node, int[] order, int[] index, int written) {
+        // Walk the sibling chain in a loop, only children need the stack
+        while ( node != 0 && index[node] == 0 ) {
+            written++;
+            index[node] = written;
+            order[written] = node;
+
+            written = number(children[node], order, index, written);
+            node = siblings[node];
+        }
+        return written;
+    }
+}
@@ -0,0 +1,96 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+// A dictionary whose nodes are int handles rather than objects.  Handles are
+// the node numbers from the file, with the root at 1 and NONE (0) standing in
+// for a missing sibling or child.  Subclasses decide where the nodes live.
+public abstract class IndexedDawg {
+    public static final int NONE = 0;
+
+    // Words at or below each node, null until first asked for.  The table is
+    // filled in whole before it is published, so a reader on any thread sees
+    // either nothing or every count.
+    private volatile int[] solutions = null;
+
+    public int root() { return 1; }
+    public abstract int size();
+
+    public abstract int value(int node);
+    public abstract int sibling(int node);
+    public abstract int child(int node);
+    public abstract boolean isTerminal(int node);
+
+    public boolean hasChild(int node, int childValue) {
+        return child(node, childValue) != NONE;
+    }
+
+    // Return the child of node with the value indicated, NONE otherwise
+    public int child(int node, int childValue) {
+        int nextChild = child(node);
+        while ( nextChild != NONE ) {
+            if ( value(nextChild) == childValue ) { return nextChild; }
+            nextChild = sibling(nextChild);
+        }
+        return NONE;
+    }
+
+    // Number of words below node, counting node itself if it is terminal.
+    // The first call counts every node, later calls are a lookup.  Two
+    // threads asking at once just make the same table twice.
+    public int solutions(int node) {
+        int[] counts = solutions;
+        if ( counts == null ) {
+            counts = new int[size() + 1];
+            java.util.Arrays.fill(counts, -1);
+            counts[NONE] = 0;
+            for (int next=1; next<=size(); next++) {
+                count(next, counts);
+            }
+            solutions = counts;
+        }
+        return counts[node];
+    }
+    private int count(int node, int[] counts) {
+        if ( counts[node] >= 0 ) { return counts[node]; }
+
+        int count = 0;
+
+        int nextNode = child(node);
+        while ( nextNode != NONE ) {
+            count += count(nextNode, counts);
+            nextNode = sibling(nextNode);
+        }
+
+        if ( isTerminal(node) ) { count++; }
+        counts[node] = count;
+        return count;
+    }
+
+    // Determine if a word exists in this structure
+    public boolean validWord(String word) {
+        int node = root();
+        for (int index=0; index<word.length(); index++) {
+            node = child(node, word.charAt(index));
+            if ( node == NONE ) { return false; }
+        }
+        return isTerminal(node);
+    }
+}
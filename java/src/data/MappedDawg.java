@@ -0,0 +1,98 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+// Dictionary read straight out of the file bytes.  Nothing is parsed up front,
+// each lookup reads the node's fields from a little-endian buffer, so opening
+// a dictionary only costs the map (or the read of a classpath resource).
+// Version 2 files are handed to a PackedDawg, which also checks the checksum
+// and notes where each node starts on the first lookup.
+public class MappedDawg extends IndexedDawg {
+    private static final int HEADER = 4;
+    private static final int NODE = 16;
+
+    private ByteBuffer buffer;
+    private int count;
+    private PackedDawg packed;  // null for version 1
+
+    public MappedDawg(ByteBuffer initBuffer) throws IOException {
+        buffer = initBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if ( buffer.capacity() < HEADER ) { throw new EOFException("Missing node count"); }
+
+        count = buffer.getInt(0);
+        if ( count == PackedDawg.MAGIC ) {
+            packed = new PackedDawg(buffer);
+            count = packed.size();
+            return;
+        }
+        if ( count < 1 || buffer.capacity() < HEADER + (long)count * NODE ) {
+            throw new EOFException("Dictionary is shorter than its " + count + " nodes");
+        }
+    }
+
+    // Map a dictionary file read only, the mapping outlives the channel
+    public static MappedDawg map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new MappedDawg(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    // Classpath resources cannot be mapped, so their bytes are wrapped instead
+    public static MappedDawg read(InputStream is) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        byte[] chunk = new byte[16 * 1024];
+        int read;
+        while ( (read = is.read(chunk)) > 0 ) {
+            bytes.write(chunk, 0, read);
+        }
+        return new MappedDawg(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    public int size() { return count; }
+
+    public int value(int node) {
+        if ( packed != null ) { return packed.value(node); }
+        return buffer.getInt(offset(node));
+    }
+    public int sibling(int node) {
+        if ( packed != null ) { return packed.sibling(node); }
+        return buffer.getInt(offset(node) + 4);
+    }
+    public int child(int node) {
+        if ( packed != null ) { return packed.child(node); }
+        return buffer.getInt(offset(node) + 8);
+    }
+    public boolean isTerminal(int node) {
+        if ( packed != null ) { return packed.isTerminal(node); }
+        return buffer.getInt(offset(node) + 12) > 0;
+    }
+
+    private static int offset(int node) {
+        return HEADER + (node - 1) * NODE;
+    }
+}
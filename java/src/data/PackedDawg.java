@@ -0,0 +1,274 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package data;
+
+import java.io.*;
+import java.nio.*;
+import java.util.zip.*;
+
+// Version 2 of the dictionary file, read in place like MappedDawg.  The file
+// starts with five little-endian ints: MAGIC, VERSION, the node count, the
+// length of the node bytes and their CRC32.  The node bytes follow, numbered
+// from the root at 1 the same as version 1, each one a flag byte then up to
+// three varints:
+//
+//     bits 0-3  value, or 15 when the value follows as a varint
+//     bit 4     terminal
+//     bits 5-6  child: none, the next node, an earlier node (node - child
+//               follows) or a later one (child - node follows)
+//     bit 7     sibling, sibling - node follows zigzag coded
+//
+// Children are numbered right after their parent unless they are shared, so
+// most nodes are the flag byte alone.  Nodes differ in length, so the first
+// lookup walks them once to note where each one starts.  Dawg and
+// CompactDawg decode the nodes straight into their own copy instead.
+public class PackedDawg extends IndexedDawg {
+    public static final int MAGIC = 0x44474550;     // "PEGD"
+    public static final int VERSION = 2;
+    public static final int HEADER = 20;
+
+    // How many nodes to decode between progress reports
+    private static final int PROGRESS_STEP = 1024;
+
+    // Flag byte fields
+    static final int VALUE = 0x0F;
+    static final int VALUE_FOLLOWS = 0x0F;
+    static final int TERMINAL = 0x10;
+    static final int CHILD_SHIFT = 5;
+    static final int CHILD_NONE = 0;
+    static final int CHILD_NEXT = 1;
+    static final int CHILD_BEFORE = 2;
+    static final int CHILD_AFTER = 3;
+    static final int SIBLING = 0x80;
+
+    private ByteBuffer buffer;
+    private int count;
+    private volatile int[] offsets;     // where each node starts, see offsets()
+
+    // Opening only checks the header and checksum, the nodes are not walked
+    // until one is read
+    public PackedDawg(ByteBuffer initBuffer) throws IOException {
+        buffer = check(initBuffer);
+        count = buffer.getInt(8);
+    }
+
+    // Where each node starts, found on first use and then kept.  The checksum
+    // has passed by now, so nodes that do not fill their bytes mean the file
+    // was written wrong rather than damaged.
+    private int[] offsets() {
+        int[] starts = offsets;
+        if ( starts != null ) { return starts; }
+
+        int end = HEADER + buffer.getInt(12);
+        starts = new int[count + 1];
+        int offset = HEADER;
+        for (int node=1; node<=count; node++) {
+            if ( offset >= end ) {
+                throw new IllegalStateException("Dictionary is shorter than its " + count + " nodes");
+            }
+            starts[node] = offset;
+            offset = next(offset);
+        }
+        if ( offset != end ) {
+            throw new IllegalStateException("Dictionary nodes do not fill " + (end - HEADER) + " bytes");
+        }
+        offsets = starts;
+        return starts;
+    }
+
+    // Check the header and checksum, returns a little-endian view of file
+    private static ByteBuffer check(ByteBuffer file) throws IOException {
+        ByteBuffer buffer = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if ( buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC ) {
+            throw new IOException("Not a version " + VERSION + " dictionary");
+        }
+        if ( buffer.getInt(4) != VERSION ) {
+            throw new IOException("Unknown dictionary version " + buffer.getInt(4));
+        }
+
+        int count = buffer.getInt(8);
+        int length = buffer.getInt(12);
+        if ( count < 1 || length < count || buffer.capacity() < HEADER + (long)length ) {
+            throw new EOFException("Dictionary is shorter than its " + count + " nodes");
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER).limit(HEADER + length);
+        crc.update(body);
+        if ( (int) crc.getValue() != buffer.getInt(16) ) {
+            throw new IOException("Dictionary checksum does not match");
+        }
+        return buffer;
+    }
+
+    // Read the rest of a file from a stream whose first int was MAGIC.  The
+    // file is checked, see count() and unpack() for the nodes.
+    static ByteBuffer read(LittleEndianInputStream in) throws IOException {
+        int version = in.readInt();
+        int nodes = in.readInt();
+        int length = in.readInt();
+        int crc = in.readInt();
+
+        // Nothing is sized from the length until it matches the bytes that are there
+        byte[] bytes = rest(in);
+        if ( length != bytes.length ) {
+            throw new IOException("Dictionary length " + length + " does not match its " + bytes.length + " bytes");
+        }
+
+        ByteBuffer file = ByteBuffer.allocate(HEADER + length).order(ByteOrder.LITTLE_ENDIAN);
+        file.putInt(MAGIC).putInt(version).putInt(nodes).putInt(length).putInt(crc);
+        file.put(bytes);
+        return check(file);
+    }
+
+    // Everything left in the stream, read a chunk at a time so a bad header
+    // never decides how much to allocate
+    static byte[] rest(LittleEndianInputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        byte[] chunk = new byte[16 * 1024];
+        int read;
+        while ( (read = in.read(chunk, 0, chunk.length)) > 0 ) {
+            bytes.write(chunk, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    static int count(ByteBuffer file) {
+        return file.getInt(8);
+    }
+
+    // Decode every node in order for readers that keep their own copy, which
+    // is quicker than finding each one.  The arrays hold count(file) + 1.
+    // listener, when not null, hears how many nodes have been decoded.
+    static void unpack(ByteBuffer file, int[] values, boolean[] terminals, int[] siblings, int[] children,
+            ProgressListener listener) throws IOException {
+        ByteBuffer nodes = file.duplicate();
+        nodes.position(HEADER).limit(HEADER + file.getInt(12));
+        try {
+            for (int node=1; node<values.length; node++) {
+                int flags = nodes.get() & 0xFF;
+                int value = flags & VALUE;
+                values[node] = value == VALUE_FOLLOWS ? varint(nodes) : value;
+                terminals[node] = (flags & TERMINAL) != 0;
+
+                int kind = (flags >>> CHILD_SHIFT) & 3;
+                if ( kind == CHILD_NEXT ) {
+                    children[node] = node + 1;
+                } else if ( kind == CHILD_BEFORE ) {
+                    children[node] = node - varint(nodes);
+                } else if ( kind == CHILD_AFTER ) {
+                    children[node] = node + varint(nodes);
+                }
+
+                if ( (flags & SIBLING) != 0 ) {
+                    int delta = varint(nodes);
+                    siblings[node] = node + ((delta >>> 1) ^ -(delta & 1));
+                }
+
+                if ( listener != null && (node % PROGRESS_STEP == 0 || node == values.length - 1) ) {
+                    listener.progress(node, values.length - 1);
+                }
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new EOFException("Dictionary is shorter than its " + (values.length - 1) + " nodes");
+        }
+        if ( nodes.hasRemaining() ) {
+            throw new IOException("Dictionary nodes do not fill " + (nodes.limit() - HEADER) + " bytes");
+        }
+        for (int node=1; node<values.length; node++) {
+            if ( children[node] < 0 || children[node] >= values.length
+                    || siblings[node] < 0 || siblings[node] >= values.length ) {
+                throw new IOException("Dictionary node " + node + " points outside the file");
+            }
+        }
+    }
+
+    public int size() { return count; }
+
+    // Bytes taken by the header and nodes
+    public int bytes() { return HEADER + buffer.getInt(12); }
+
+    public int value(int node) {
+        int offset = offsets()[node];
+        int value = buffer.get(offset) & VALUE;
+        return value == VALUE_FOLLOWS ? varint(offset + 1) : value;
+    }
+
+    public boolean isTerminal(int node) {
+        return (buffer.get(offsets()[node]) & TERMINAL) != 0;
+    }
+
+    public int child(int node) {
+        int offset = offsets()[node];
+        int flags = buffer.get(offset) & 0xFF;
+        int kind = (flags >>> CHILD_SHIFT) & 3;
+        if ( kind == CHILD_NONE ) { return NONE; }
+        if ( kind == CHILD_NEXT ) { return node + 1; }
+
+        offset++;
+        if ( (flags & VALUE) == VALUE_FOLLOWS ) { offset = skip(offset); }
+        return kind == CHILD_BEFORE ? node - varint(offset) : node + varint(offset);
+    }
+
+    public int sibling(int node) {
+        int offset = offsets()[node];
+        int flags = buffer.get(offset) & 0xFF;
+        if ( (flags & SIBLING) == 0 ) { return NONE; }
+
+        offset++;
+        if ( (flags & VALUE) == VALUE_FOLLOWS ) { offset = skip(offset); }
+        if ( ((flags >>> CHILD_SHIFT) & 3) >= CHILD_BEFORE ) { offset = skip(offset); }
+        int delta = varint(offset);
+        return node + ((delta >>> 1) ^ -(delta & 1));
+    }
+
+    // Offset of the node after the one at offset
+    private int next(int offset) {
+        int flags = buffer.get(offset) & 0xFF;
+        offset++;
+        if ( (flags & VALUE) == VALUE_FOLLOWS ) { offset = skip(offset); }
+        if ( ((flags >>> CHILD_SHIFT) & 3) >= CHILD_BEFORE ) { offset = skip(offset); }
+        if ( (flags & SIBLING) != 0 ) { offset = skip(offset); }
+        return offset;
+    }
+
+    // Seven bits a byte, low bits first, the high bit set on all but the last
+    private static int varint(ByteBuffer nodes) {
+        int value = 0;
+        for (int shift=0; ; shift+=7) {
+            int b = nodes.get();
+            value |= (b & 0x7F) << shift;
+            if ( b >= 0 ) { return value; }
+        }
+    }
+    private int varint(int offset) {
+        int value = 0;
+        for (int shift=0; ; shift+=7) {
+            int b = buffer.get(offset++);
+            value |= (b & 0x7F) << shift;
+            if ( b >= 0 ) { return value; }
+        }
+    }
+    private int skip(int offset) {
+        while ( buffer.get(offset++) < 0 ) { }
+        return offset;
+    }
+}
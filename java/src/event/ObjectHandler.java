@@ -21,48 +21,131 @@ package event;
 
 import java.util.*;
 
-// Event handlers for any entity that need to callback after an update
+// Event handlers for any entity that need to callback after an update.
+//
+// Listeners are kept in an array that is copied whenever one registers or
+// leaves, so a callback walks a fixed snapshot without locking or casting,
+// and listeners may come and go from inside a callback.
+//
+// Each callback can say what changed as a bit mask, for a board bit n is
+// peg n.  Between begin() and end() callbacks are held back and their masks
+// joined, so one logical operation sends a single update no matter how many
+// steps it took.  Batches nest and belong to the thread that opened them:
+// the batch state is kept per thread, so a callback from another thread is
+// sent straight away instead of being joined into someone else's batch.
 public class ObjectHandler {
+    // Something changed, but not saying what
+    public static final long ALL = -1L;
+
+    private static final ObjectListener[] NONE = new ObjectListener[0];
+
     private Object entity;
 
-    // List of registered objects
-    private Vector registeredObjects;
-    private int registeredCount;
+    // Registered objects, replaced rather than changed
+    private volatile ObjectListener[] listeners = NONE;
+
+    // Batch and update state of each thread
+    private final ThreadLocal<Batch> batch = new ThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            return new Batch();
+        }
+    };
 
     // Constructor
     public ObjectHandler(Object entityInit) {
         entity = entityInit;
-
-        registeredObjects = new Vector();
-        registeredCount = 0;
     }
     public Object getEntity() {
         return entity;
     }
 
+    // What the update being sent changed, ALL when it was not said
+    public long changed() {
+        return batch.get().changed;
+    }
+
+    // Is peg (or any other numbered part of the entity) in this update
+    public boolean changed(int part) {
+        return part >= 64 || (changed() & (1L << part)) != 0;
+    }
+
     // Registration methods
-    public void register(Object registrant) {
+    public synchronized void register(ObjectListener registrant) {
         // Dont re-register the same objects
-        for (int index=0; index<registeredCount; index++) {
-            if ( registrant == registeredObjects.get(index) ) { return; }
+        ObjectListener[] current = listeners;
+        for (int index=0; index<current.length; index++) {
+            if ( current[index] == registrant ) { return; }
         }
-        registeredObjects.add(registrant);
-        registeredCount++;
+
+        ObjectListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = registrant;
+        listeners = next;
     }
-    public void unregister(Object registrant) {
-        for (int index=0; index<registeredCount; index++) {
-            if ( registeredObjects.get(index) == registrant ) {
-                registeredObjects.remove(index);
-                registeredCount--;
+    public synchronized void unregister(ObjectListener registrant) {
+        ObjectListener[] current = listeners;
+        for (int index=0; index<current.length; index++) {
+            if ( current[index] == registrant ) {
+                ObjectListener[] next = new ObjectListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, index);
+                System.arraycopy(current, index + 1, next, index, next.length - index);
+                listeners = next;
+                return;
             }
         }
     }
 
+    // Hold back callbacks until the matching end()
+    public void begin() {
+        batch.get().depth++;
+    }
+
+    // Close a batch, the outermost one sends whatever was held back
+    public void end() {
+        Batch current = batch.get();
+        if ( current.depth == 0 ) { throw new IllegalStateException("end() without begin()"); }
+
+        current.depth--;
+        if ( current.depth == 0 && current.pending ) {
+            long changes = current.pendingChanges;
+            current.pending = false;
+            current.pendingChanges = 0;
+            send(current, changes);
+        }
+    }
+
     // Call back everything that has registered itself with us
     public void callback() {
-        int index;
-        for (index=0; index<registeredCount; index++) {
-            ((ObjectListener)registeredObjects.get(index)).objectUpdated(this);
+        callback(ALL);
+    }
+    public void callback(long changes) {
+        Batch current = batch.get();
+        if ( current.depth > 0 ) {
+            current.pending = true;
+            current.pendingChanges |= changes;
+            return;
         }
+        send(current, changes);
+    }
+
+    private void send(Batch current, long changes) {
+        long outer = current.changed;
+        current.changed = changes;
+        try {
+            ObjectListener[] registered = listeners;
+            for (int index=0; index<registered.length; index++) {
+                registered[index].objectUpdated(this);
+            }
+        } finally {
+            current.changed = outer;
+        }
+    }
+
+    // One thread's open batches and the mask of the update it is sending
+    private static class Batch {
+        private int depth = 0;
+        private boolean pending = false;
+        private long pendingChanges = 0;
+        private long changed = ALL;
     }
 }
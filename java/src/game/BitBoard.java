@@ -0,0 +1,139 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package game;
+
+// A peg board packed into the low 15 bits of an int.  Bit n is set when peg n
+// is filled.  Every legal jump is precomputed as a (from, over, to) triple so
+// checking, making and undoing a jump are single mask operations.
+public class BitBoard {
+    public static final int PEGS = Board.PEGS;
+    public static final int FULL = (1 << PEGS) - 1;
+
+    // The standard board, every jump is taken from its tables
+    private static final Triangle triangle = new Triangle(Board.ROWS);
+
+    // Jump tables indexed by jump number, ordered by from peg then direction
+    private static final int[] jumpFrom;
+    private static final int[] jumpOver;
+    private static final int[] jumpTo;
+    private static final int[] jumpMask;    // from, over and to bits
+    private static final int[] jumpCheck;   // bits a legal jump finds filled (from, over)
+    private static final int[] jumpNumbers; // [from*PEGS + to] -> jump number, -1 otherwise
+
+    public static final int JUMPS = triangle.jumps();
+
+    static {
+        jumpFrom = new int[JUMPS];
+        jumpOver = new int[JUMPS];
+        jumpTo = new int[JUMPS];
+        jumpMask = new int[JUMPS];
+        jumpCheck = new int[JUMPS];
+        jumpNumbers = new int[PEGS * PEGS];
+        java.util.Arrays.fill(jumpNumbers, -1);
+
+        for (int jump=0; jump<JUMPS; jump++) {
+            jumpFrom[jump] = triangle.from(jump);
+            jumpOver[jump] = triangle.over(jump);
+            jumpTo[jump] = triangle.to(jump);
+            jumpCheck[jump] = (1 << jumpFrom[jump]) | (1 << jumpOver[jump]);
+            jumpMask[jump] = jumpCheck[jump] | (1 << jumpTo[jump]);
+            jumpNumbers[jumpFrom[jump] * PEGS + jumpTo[jump]] = jump;
+        }
+    }
+
+    private int state;
+
+    // Constructor, every peg filled
+    public BitBoard() {
+        state = FULL;
+    }
+    public BitBoard(int initState) {
+        state = initState & FULL;
+    }
+
+    // Raw state access
+    public int state() { return state; }
+    public void state(int newState) {
+        state = newState & FULL;
+    }
+
+    public boolean isFilled(int peg) {
+        return (state & (1 << peg)) != 0;
+    }
+    public void fill(int peg) { state |= (1 << peg); }
+    public void empty(int peg) { state &= ~(1 << peg); }
+
+    // Attempt a jump from peg1 into peg2, returns false if it is not legal
+    public boolean jump(int peg1, int peg2) {
+        int jump = jumpNumber(peg1, peg2);
+        if ( jump < 0 || ! canJump(state, jump) ) { return false; }
+
+        state ^= jumpMask[jump];
+        return true;
+    }
+    public boolean canJump(int jump) { return canJump(state, jump); }
+
+    // Apply and undo are the same flip of all three bits
+    public void apply(int jump) { state ^= jumpMask[jump]; }
+    public void undo(int jump) { state ^= jumpMask[jump]; }
+
+    public boolean hasMovesLeft() { return hasMovesLeft(state); }
+    public int moves(int[] list) { return moves(state, list); }
+    public int pegsLeft() { return Integer.bitCount(state); }
+
+    // Static operations on raw states, for solvers that keep their own stacks
+
+    // Jump number for a jump from peg1 into peg2, -1 when the pegs do not line up
+    public static int jumpNumber(int peg1, int peg2) {
+        if ( peg1 >= PEGS || peg1 < 0 || peg2 >= PEGS || peg2 < 0 ) { return -1; }
+
+        return jumpNumbers[peg1 * PEGS + peg2];
+    }
+
+    public static int from(int jump) { return jumpFrom[jump]; }
+    public static int over(int jump) { return jumpOver[jump]; }
+    public static int to(int jump) { return jumpTo[jump]; }
+    public static int mask(int jump) { return jumpMask[jump]; }
+
+    public static boolean canJump(int state, int jump) {
+        return (state & jumpMask[jump]) == jumpCheck[jump];
+    }
+    public static int apply(int state, int jump) {
+        return state ^ jumpMask[jump];
+    }
+
+    public static boolean hasMovesLeft(int state) {
+        for (int jump=0; jump<JUMPS; jump++) {
+            if ( (state & jumpMask[jump]) == jumpCheck[jump] ) { return true; }
+        }
+        return false;
+    }
+
+    // Fill list with the legal jump numbers for state, returns how many were found
+    public static int moves(int state, int[] list) {
+        int count = 0;
+        for (int jump=0; jump<JUMPS; jump++) {
+            if ( (state & jumpMask[jump]) == jumpCheck[jump] ) {
+                list[count++] = jump;
+            }
+        }
+        return count;
+    }
+}
@@ -20,18 +20,26 @@
 package game;
 
 import event.*;
-import java.util.*;
 
-// A peg board
+// A peg board, the standard 5 row triangle unless another shape is asked for
 public class Board {
+    private Geometry geometry;
     private Peg[] pegs;
-    private Peg[][] directions;
+    private LongBoard bits;
 
     private Peg emptyPeg;
-    private Vector moves;
+
+    // Jumps made so far, one int each: from | over << 8 | to << 16.  Every
+    // jump takes a peg off, so there are at most holes - 2 of them.
+    private int[] moveLog;
+    private int moveCount;
+    private static final int MOVE_BITS = 8;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
 
     private ObjectHandler eventHandler = null;
 
+    // Size of the standard board
+    public static final int ROWS = 5;
     public static final int PEGS = 15;
 
     // Directions in clockwise order
@@ -44,75 +52,82 @@ public class Board {
 
     // Constructor, initialization routines
     public Board() {
+        this(ROWS);
+    }
+    public Board(int rows) {
+        this(new Triangle(rows));
+    }
+    public Board(Geometry initGeometry) {
         eventHandler = new ObjectHandler(this);
+        geometry = initGeometry;
 
         initComponents();
     }
     private void initComponents() {
         // Initialize the pegs
-        pegs = new Peg[PEGS];
-        for (int index=0; index<PEGS; index++) {
+        pegs = new Peg[geometry.holes()];
+        for (int index=0; index<pegs.length; index++) {
             pegs[index] = new Peg(index);
             pegs[index].fill();
         }
 
-        // Each array contains which peg points int the direciton
-        // (TOPLEFT, TOPRIGHT, RIGHT, BOTRIGHT, LEFT)
-        Peg[][] initDirections= {
-            {null,     null,     null,     pegs[2],  pegs[1],  null},
-            {null,     pegs[0],  pegs[2],  pegs[4],  pegs[3],  null},
-            {pegs[0],  null,     null,     pegs[5],  pegs[4],  pegs[1]},
-            {null,     pegs[1],  pegs[4],  pegs[7],  pegs[6],  null},
-            {pegs[1],  pegs[2],  pegs[5],  pegs[8],  pegs[7],  pegs[3]},
-            {pegs[2],  null,     null,     pegs[9],  pegs[8],  pegs[4]},
-            {null,     pegs[3],  pegs[7],  pegs[11], pegs[10], null},
-            {pegs[3],  pegs[4],  pegs[8],  pegs[12], pegs[11], pegs[6]},
-            {pegs[4],  pegs[5],  pegs[9],  pegs[13], pegs[12], pegs[7]},
-            {pegs[5],  null,     null,     pegs[14], pegs[13], pegs[8]},
-            {null,     pegs[6],  pegs[11], null,     null,     null},
-            {pegs[6],  pegs[7],  pegs[12], null,     null,     pegs[10]},
-            {pegs[7],  pegs[8],  pegs[13], null,     null,     pegs[11]},
-            {pegs[8],  pegs[9],  pegs[14], null,     null,     pegs[12]},
-            {pegs[9],  null,     null,     null,     null,     pegs[13]},
-        };
-        directions = initDirections;
+        // Which pegs are filled is tracked by the bit board, the Peg objects
+        // only carry the display state
+        bits = new LongBoard(geometry);
         emptyPeg = null;
-        moves = new Vector();
+        moveLog = new int[Math.max(geometry.holes() - 2, 0)];
+        moveCount = 0;
     }
 
     // Public interface
     public ObjectHandler eventHandler() { return eventHandler; }
 
+    public Geometry geometry() { return geometry; }
+    public int pegs() { return pegs.length; }
+
+    // Packed state of the board, bit n set when peg n is filled
+    public long state() { return bits.state(); }
+
     // Fill in all the pegs, awaiting the blank spot to be picked
     public void reset() {
-        for (int peg=0; peg<PEGS; peg++) {
+        for (int peg=0; peg<pegs.length; peg++) {
             pegs[peg].fill();
         }
+        bits.state(geometry.full());
 
-        moves.clear();
+        moveCount = 0;
         emptyPeg = null;
         eventHandler.callback();
     }
 
     // Reset any highlighted pegs
     public void clear() {
-        for (int peg=0; peg<PEGS; peg++) {
-            if ( pegs[peg].state() != Peg.EMPTY ) {
+        long changed = 0;
+        for (int peg=0; peg<pegs.length; peg++) {
+            int state = pegs[peg].state();
+            if ( state == Peg.SELECTED || state == Peg.TOBEJUMPED ) {
                 pegs[peg].fill();
+                changed |= bit(peg);
             }
         }
 
-        eventHandler.callback();
+        if ( changed != 0 ) { eventHandler.callback(changed); }
+    }
+
+    // Update mask for one peg, boards past 64 holes say ALL
+    private static long bit(int peg) {
+        return peg < 64 ? 1L << peg : ObjectHandler.ALL;
     }
 
     // Actually pick the empty peg
     public void setEmptyPeg(Peg peg) {
         if ( peg == null ) { return; }
         
-        for (int index=0; index<PEGS; index++) {
+        for (int index=0; index<pegs.length; index++) {
             if ( pegs[index] == peg ) {
                 peg.empty();
-                eventHandler.callback();
+                bits.empty(index);
+                eventHandler.callback(bit(index));
 
                 emptyPeg = peg;
                 return;
@@ -126,18 +141,19 @@ public class Board {
     // Attempt to make a move, putting Peg1 into Peg2 and removing the jumped peg
     public boolean jump(int peg1, int peg2) {
 
-        if ( canJump(peg1, peg2) ) {
+        int jump = geometry.jumpNumber(peg1, peg2);
+        if ( jump >= 0 && bits.canJump(jump) ) {
             // Make the jump
-            int direction = direction(peg1, peg2);
+            bits.apply(jump);
 
+            int over = geometry.over(jump);
             pegs[peg1].empty();
             pegs[peg2].fill();
-            directions[peg1][direction].empty();
+            pegs[over].empty();
 
-            moves.add(new Integer(peg1));
-            moves.add(new Integer(peg2));
+            moveLog[moveCount++] = peg1 | over << MOVE_BITS | peg2 << (2 * MOVE_BITS);
 
-            eventHandler.callback();
+            eventHandler.callback(bit(peg1) | bit(peg2) | bit(over));
             return true;
         }
         return false;
@@ -145,20 +161,25 @@ public class Board {
 
     // Return the peg requested by index
     public Peg peg(int peg) {
-        if ( peg < 0 || peg >= PEGS ) { return null; }
+        if ( peg < 0 || peg >= pegs.length ) { return null; }
 
         return pegs[peg];
     }
 
-    // Highlight the peg selected
+    // Highlight the peg selected, listeners get one update for the clear
+    // and the selection
     public void selectPeg(Peg peg) {
-        for (int index=0; index<PEGS; index++) {
+        for (int index=0; index<pegs.length; index++) {
             if ( pegs[index] == peg ) {
-                clear();
-
-                peg.select();
-                eventHandler.callback();
-
+                eventHandler.begin();
+                try {
+                    clear();
+
+                    peg.select();
+                    eventHandler.callback(bit(index));
+                } finally {
+                    eventHandler.end();
+                }
                 return;
             }
         }
@@ -166,130 +187,59 @@ public class Board {
 
     // Show a move on the board, both the peg jumping and the peg jumped
     public void showMove(int peg1, int peg2) {
-        if ( peg1 >= PEGS || peg1 < 0 || peg2 >= PEGS || peg2 < 0 ) { return; }
-        if ( ! canJump(peg1, peg2) ) { return; }
+        int jump = geometry.jumpNumber(peg1, peg2);
+        if ( jump < 0 || ! bits.canJump(jump) ) { return; }
 
-        int direction = direction(peg1, peg2);
-        int peg3 = directions[peg1][direction].value();
+        int peg3 = geometry.over(jump);
 
         pegs[peg1].select();
         pegs[peg3].jump();
 
-        eventHandler.callback();
-    }
-
-    // Determine if a jump from peg1 into peg2 is possible
-    private boolean canJump(int peg1, int peg2) {
-        if ( peg1 >= PEGS || peg1 < 0 || peg2 >= PEGS || peg2 < 0 ) { return false; }
-
-        // Find the direction from Peg1 to Peg2
-        int direction = direction(peg1, peg2);
-        if ( direction < 0 ) { return false; }
-
-        if ( direction >= 0 && direction <= LEFT ) {
-            // Make sure this peg has something in it
-            if ( pegs[peg1].state() == Peg.EMPTY ) {
-                return false;
-            }
-
-            // Make sure the peg we are jumping is not empty
-            if ( directions[peg1][direction].state() == Peg.EMPTY ) {
-                return false;
-            }
-
-            // Verify the peg we are going to land in is empty
-            if ( pegs[peg2].state() != Peg.EMPTY ) {
-                return false;
-            }
-
-            // All tests pass, return true
-            return true;
-        }
-
-        return false;
-    }
-
-    // Determine the direction from one peg to the next.  Maximum of two hops
-    private int direction(int peg1, int peg2) {
-        if ( peg1 >= PEGS || peg1 < 0 || peg2 >= PEGS || peg2 < 0 ) { return -1; }
-
-        // Find the direction from Peg1 to Peg2
-        int direction = 0;
-        while (direction <= LEFT ) {
-            // Find adjacent pegs
-            if ( directions[peg1][direction] == pegs[peg2] ) {
-                return direction;
-            }
-            
-            // Find pegs that are one hop away
-            if ( directions[peg1][direction] != null ) {
-                Peg adjPeg = directions[peg1][direction];
-                if ( directions[adjPeg.value()][direction] != null) {
-                    if (directions[adjPeg.value()][direction] == pegs[peg2]) {
-                        return direction;
-                    }
-                }
-            }
-
-            direction++;
-        }
-
-        return -1;
+        eventHandler.callback(bit(peg1) | bit(peg3));
     }
 
     // Determine if this board has any moves left
     public boolean hasMovesLeft() {
-        for (int peg=0; peg<PEGS; peg++) {
-            for (int direction=0; direction<=LEFT; direction++) {
-                if ( directions[peg][direction] != null ) {
-                    int pegTo = directions[peg][direction].value();
-                    if ( directions[pegTo][direction] != null ) {
-                        if ( canJump(peg, directions[pegTo][direction].value()) ) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        
-        return false;
+        return bits.hasMovesLeft();
     }
 
     // Number of pegs still filled on the board
     public int pegsLeft() {
-        int count = 0;
-
-        for (int index=0; index<pegs.length; index++) {
-            if ( pegs[index].state() == Peg.FILLED ) {
-                count++;
-            }
-        }
-
-        return count;
+        return bits.pegsLeft();
     }
 
-    // Keep track of the moves and return them if requested
-    public Object[] moves() {
-        return moves.toArray();
-    }
+    // The moves made so far, read in place.  Move 0 is the first jump.
+    public int moveCount() { return moveCount; }
+    public int moveFrom(int move) { return moveLog[move] & MOVE_MASK; }
+    public int moveOver(int move) { return (moveLog[move] >>> MOVE_BITS) & MOVE_MASK; }
+    public int moveTo(int move) { return moveLog[move] >>> (2 * MOVE_BITS); }
 
-    // Remove the last move from the board
+    // Remove the last move from the board, sent as one update
     public void undo() {
-        clear();
-        if ( moves.size() == 0 ) { return; }
-        
-        Integer pegTo = (Integer) moves.lastElement();
-        moves.remove(moves.size()-1);
+        eventHandler.begin();
+        try {
+            clear();
+            undoMove();
+        } finally {
+            eventHandler.end();
+        }
+    }
+    private void undoMove() {
+        if ( moveCount == 0 ) { return; }
 
-        Integer pegFrom = (Integer) moves.lastElement();
-        moves.remove(moves.size()-1);
+        moveCount--;
+        int from = moveFrom(moveCount);
+        int over = moveOver(moveCount);
+        int to = moveTo(moveCount);
 
-        int direction = direction(pegFrom, pegTo);
+        bits.fill(from);
+        bits.fill(over);
+        bits.empty(to);
 
-        pegs[pegTo].empty();
-        pegs[pegFrom].fill();
-        directions[pegFrom][direction].fill();
+        pegs[to].empty();
+        pegs[from].fill();
+        pegs[over].fill();
 
-        eventHandler.callback();
+        eventHandler.callback(bit(to) | bit(from) | bit(over));
     }
 }
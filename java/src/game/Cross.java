@@ -0,0 +1,104 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package game;
+
+// Cross shaped solitaire boards on a 7 x 7 grid, pegs jump up, down, left or
+// right.  Holes are numbered row by row from the top left.
+public class Cross extends Geometry {
+    public static final int SIZE = 7;
+    public static final int TRANSFORMS = 8;
+
+    // Directions in clockwise order
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+
+    private static final int[] rowSteps = {-1, 0, 1, 0};
+    private static final int[] columnSteps = {0, 1, 0, -1};
+
+    // Holes in each row, as the first and last column
+    private static final int[][] englishRows = {
+        {2, 4}, {2, 4}, {0, 6}, {0, 6}, {0, 6}, {2, 4}, {2, 4},
+    };
+    private static final int[][] europeanRows = {
+        {2, 4}, {1, 5}, {0, 6}, {0, 6}, {0, 6}, {1, 5}, {2, 4},
+    };
+
+    private String name;
+
+    // The 33 hole English board
+    public static Cross english() {
+        return new Cross("English", englishRows);
+    }
+
+    // The 37 hole European board
+    public static Cross european() {
+        return new Cross("European", europeanRows);
+    }
+
+    private Cross(String initName, int[][] rowSpans) {
+        name = initName;
+
+        int holes = 0;
+        for (int row=0; row<SIZE; row++) {
+            holes += rowSpans[row][1] - rowSpans[row][0] + 1;
+        }
+        int[] holeRows = new int[holes];
+        int[] holeColumns = new int[holes];
+        int[][] grid = new int[SIZE][SIZE];
+        int hole = 0;
+        for (int row=0; row<SIZE; row++) {
+            java.util.Arrays.fill(grid[row], -1);
+            for (int column=rowSpans[row][0]; column<=rowSpans[row][1]; column++) {
+                holeRows[hole] = row;
+                holeColumns[hole] = column;
+                grid[row][column] = hole++;
+            }
+        }
+
+        // The four rotations, then the four reflections
+        int last = SIZE - 1;
+        int[][] symmetries = new int[TRANSFORMS][holes];
+        for (hole=0; hole<holes; hole++) {
+            int row = holeRows[hole];
+            int column = holeColumns[hole];
+            symmetries[0][hole] = grid[row][column];
+            symmetries[1][hole] = grid[column][last - row];
+            symmetries[2][hole] = grid[last - row][last - column];
+            symmetries[3][hole] = grid[last - column][row];
+            symmetries[4][hole] = grid[row][last - column];
+            symmetries[5][hole] = grid[last - row][column];
+            symmetries[6][hole] = grid[column][row];
+            symmetries[7][hole] = grid[last - column][last - row];
+        }
+
+        init(holeRows, holeColumns, rowSteps, columnSteps, symmetries);
+    }
+
+    public String name() { return name; }
+
+    // The middle hole, where the classic game starts empty and finishes
+    public int center() { return hole(SIZE / 2, SIZE / 2); }
+
+    // Pegs sit on a square grid, spaced like the pegs in a triangle row
+    public int layoutRow(int hole) { return row(hole) * 2; }
+    public int layoutColumn(int hole) { return column(hole) * 2; }
+}
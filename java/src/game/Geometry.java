@@ -0,0 +1,243 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package game;
+
+// Shape of a board: which holes exist, where they sit on a grid, which way
+// pegs can jump and the symmetries of the shape.  Everything else, the jump
+// tables and the state operations, is generated here so every shape plays the
+// same way.  Holes are numbered in the order the subclass lists them and a
+// state is packed into a long, bit n set when hole n is filled, so a shape can
+// have up to MAX_HOLES holes.
+//
+// Each jump is a (from, over, to) triple, ordered by from hole then direction.
+public abstract class Geometry {
+    public static final int MAX_HOLES = 64;
+
+    private int holes;
+    private long full;
+
+    private int[] holeRows;
+    private int[] holeColumns;
+    private int[][] grid;           // [row][column] -> hole, -1 for none
+    private int directions;
+    private int[][] neighbors;      // [hole][direction] -> hole, -1 for none
+
+    private int[][] symmetries;     // [transform][hole] -> hole
+    private long[][][] symmetryChunks;  // [transform][byte][bits] -> state bits
+
+    private int jumps;
+    private int[] jumpFrom;
+    private int[] jumpOver;
+    private int[] jumpTo;
+    private long[] jumpMask;        // from, over and to bits
+    private long[] jumpCheck;       // bits a legal jump finds filled (from, over)
+    private int[] jumpNumbers;      // [from*holes + to] -> jump number, -1 otherwise
+
+    // Subclasses call this once from their constructor.  Hole n sits at
+    // rows[n], columns[n].  A peg in direction d moves by rowSteps[d],
+    // columnSteps[d].  symmetries[t][n] is where transform t moves hole n,
+    // with transform 0 the identity.
+    protected void init(int[] rows, int[] columns, int[] rowSteps, int[] columnSteps, int[][] initSymmetries) {
+        holes = rows.length;
+        if ( holes < 1 || holes > MAX_HOLES ) {
+            throw new IllegalArgumentException("Boards must have 1 to " + MAX_HOLES + " holes: " + holes);
+        }
+        full = holes == MAX_HOLES ? -1L : (1L << holes) - 1;
+        holeRows = rows.clone();
+        holeColumns = columns.clone();
+
+        int height = 0;
+        int width = 0;
+        for (int hole=0; hole<holes; hole++) {
+            height = Math.max(height, holeRows[hole] + 1);
+            width = Math.max(width, holeColumns[hole] + 1);
+        }
+        grid = new int[height][width];
+        for (int row=0; row<height; row++) {
+            java.util.Arrays.fill(grid[row], -1);
+        }
+        for (int hole=0; hole<holes; hole++) {
+            grid[holeRows[hole]][holeColumns[hole]] = hole;
+        }
+
+        directions = rowSteps.length;
+        neighbors = new int[holes][directions];
+        for (int hole=0; hole<holes; hole++) {
+            for (int direction=0; direction<directions; direction++) {
+                neighbors[hole][direction] = hole(holeRows[hole] + rowSteps[direction],
+                        holeColumns[hole] + columnSteps[direction]);
+            }
+        }
+
+        initSymmetries(initSymmetries);
+        initJumps();
+    }
+    private void initSymmetries(int[][] initSymmetries) {
+        symmetries = new int[initSymmetries.length][];
+        symmetryChunks = new long[symmetries.length][(holes + 7) / 8][256];
+        for (int transform=0; transform<symmetries.length; transform++) {
+            symmetries[transform] = initSymmetries[transform].clone();
+
+            for (int chunk=0; chunk<symmetryChunks[transform].length; chunk++) {
+                for (int bits=0; bits<256; bits++) {
+                    long image = 0;
+                    for (int bit=0; bit<8 && chunk * 8 + bit < holes; bit++) {
+                        if ( (bits & (1 << bit)) != 0 ) {
+                            image |= 1L << symmetries[transform][chunk * 8 + bit];
+                        }
+                    }
+                    symmetryChunks[transform][chunk][bits] = image;
+                }
+            }
+        }
+    }
+    private void initJumps() {
+        int[] from = new int[holes * directions];
+        int[] over = new int[holes * directions];
+        int[] to = new int[holes * directions];
+        for (int hole=0; hole<holes; hole++) {
+            for (int direction=0; direction<directions; direction++) {
+                int adjHole = neighbors[hole][direction];
+                if ( adjHole < 0 || neighbors[adjHole][direction] < 0 ) { continue; }
+
+                from[jumps] = hole;
+                over[jumps] = adjHole;
+                to[jumps] = neighbors[adjHole][direction];
+                jumps++;
+            }
+        }
+
+        jumpFrom = java.util.Arrays.copyOf(from, jumps);
+        jumpOver = java.util.Arrays.copyOf(over, jumps);
+        jumpTo = java.util.Arrays.copyOf(to, jumps);
+        jumpMask = new long[jumps];
+        jumpCheck = new long[jumps];
+        jumpNumbers = new int[holes * holes];
+        java.util.Arrays.fill(jumpNumbers, -1);
+
+        for (int jump=0; jump<jumps; jump++) {
+            jumpCheck[jump] = (1L << jumpFrom[jump]) | (1L << jumpOver[jump]);
+            jumpMask[jump] = jumpCheck[jump] | (1L << jumpTo[jump]);
+            jumpNumbers[jumpFrom[jump] * holes + jumpTo[jump]] = jump;
+        }
+    }
+
+    public int holes() { return holes; }
+    public long full() { return full; }
+
+    // Hole at row, column, -1 when that is off the board
+    public int hole(int row, int column) {
+        if ( row < 0 || row >= grid.length || column < 0 || column >= grid[row].length ) { return -1; }
+
+        return grid[row][column];
+    }
+    public int row(int hole) { return holeRows[hole]; }
+    public int column(int hole) { return holeColumns[hole]; }
+
+    // Where the GUI draws a hole, in peg widths across and half peg heights
+    // down.  A peg covers one unit across and two down.
+    public abstract int layoutRow(int hole);
+    public abstract int layoutColumn(int hole);
+
+    // Adjacent hole in direction, -1 for none
+    public int directions() { return directions; }
+    public int neighbor(int hole, int direction) {
+        return neighbors[hole][direction];
+    }
+
+    // Symmetries, transform 0 is the identity
+
+    public int transforms() { return symmetries.length; }
+
+    // Where symmetry transform moves hole
+    public int symmetry(int transform, int hole) {
+        return symmetries[transform][hole];
+    }
+
+    // A state after symmetry transform, looked up a byte at a time
+    public long symmetry(int transform, long state) {
+        long[][] chunks = symmetryChunks[transform];
+        long image = 0;
+        for (int chunk=0; chunk<chunks.length; chunk++) {
+            image |= chunks[chunk][(int) (state >>> (chunk * 8)) & 0xFF];
+        }
+        return image;
+    }
+
+    // The smallest state among state and its images
+    public long canonical(long state) {
+        long best = state;
+        for (int transform=1; transform<symmetries.length; transform++) {
+            long image = symmetry(transform, state);
+            if ( Long.compareUnsigned(image, best) < 0 ) { best = image; }
+        }
+        return best;
+    }
+
+    // Is hole the smallest of its images.  Games started from just the
+    // canonical holes cover every start up to symmetry.
+    public boolean isCanonical(int hole) {
+        for (int transform=1; transform<symmetries.length; transform++) {
+            if ( symmetries[transform][hole] < hole ) { return false; }
+        }
+        return true;
+    }
+
+    // Jump tables
+
+    public int jumps() { return jumps; }
+
+    // Jump number for a jump from hole1 into hole2, -1 when the holes do not line up
+    public int jumpNumber(int hole1, int hole2) {
+        if ( hole1 >= holes || hole1 < 0 || hole2 >= holes || hole2 < 0 ) { return -1; }
+
+        return jumpNumbers[hole1 * holes + hole2];
+    }
+
+    public int from(int jump) { return jumpFrom[jump]; }
+    public int over(int jump) { return jumpOver[jump]; }
+    public int to(int jump) { return jumpTo[jump]; }
+    public long mask(int jump) { return jumpMask[jump]; }
+
+    public boolean canJump(long state, int jump) {
+        return (state & jumpMask[jump]) == jumpCheck[jump];
+    }
+    public long apply(long state, int jump) {
+        return state ^ jumpMask[jump];
+    }
+
+    public boolean hasMovesLeft(long state) {
+        for (int jump=0; jump<jumps; jump++) {
+            if ( (state & jumpMask[jump]) == jumpCheck[jump] ) { return true; }
+        }
+        return false;
+    }
+
+    // Fill list with the legal jump numbers for state, returns how many were found
+    public int moves(long state, int[] list) {
+        int count = 0;
+        for (int jump=0; jump<jumps; jump++) {
+            if ( (state & jumpMask[jump]) == jumpCheck[jump] ) {
+                list[count++] = jump;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,69 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package game;
+
+// BitBoard for any board shape, the state is packed into a long and the jump
+// tables come from the Geometry.
+public class LongBoard {
+    private Geometry geometry;
+    private long state;
+
+    // Constructor, every hole filled
+    public LongBoard(Geometry initGeometry) {
+        geometry = initGeometry;
+        state = geometry.full();
+    }
+    public LongBoard(Geometry initGeometry, long initState) {
+        geometry = initGeometry;
+        state = initState & geometry.full();
+    }
+
+    public Geometry geometry() { return geometry; }
+
+    // Raw state access
+    public long state() { return state; }
+    public void state(long newState) {
+        state = newState & geometry.full();
+    }
+
+    public boolean isFilled(int peg) {
+        return (state & (1L << peg)) != 0;
+    }
+    public void fill(int peg) { state |= (1L << peg); }
+    public void empty(int peg) { state &= ~(1L << peg); }
+
+    // Attempt a jump from peg1 into peg2, returns false if it is not legal
+    public boolean jump(int peg1, int peg2) {
+        int jump = geometry.jumpNumber(peg1, peg2);
+        if ( jump < 0 || ! geometry.canJump(state, jump) ) { return false; }
+
+        state = geometry.apply(state, jump);
+        return true;
+    }
+    public boolean canJump(int jump) { return geometry.canJump(state, jump); }
+
+    // Apply and undo are the same flip of all three bits
+    public void apply(int jump) { state = geometry.apply(state, jump); }
+    public void undo(int jump) { state = geometry.apply(state, jump); }
+
+    public boolean hasMovesLeft() { return geometry.hasMovesLeft(state); }
+    public int moves(int[] list) { return geometry.moves(state, list); }
+    public int pegsLeft() { return Long.bitCount(state); }
+}
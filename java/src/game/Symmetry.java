@@ -0,0 +1,177 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package game;
+
+// The six symmetries of the standard board: three rotations and three
+// reflections, numbered as in Triangle.  States are transformed five bits at
+// a time through lookup tables, so moving a whole board costs three loads.
+//
+// A board and all of its images have the same solutions up to relabelling, so
+// only the canonical one (the smallest state, or the smallest word) has to be
+// stored.
+public class Symmetry {
+    public static final int TRANSFORMS = 6;
+    public static final int IDENTITY = 0;
+
+    private static final int CHUNK = 5;
+
+    private static final int[][] pegs;      // [transform][peg] -> peg
+    private static final int[] inverses;    // [transform] -> transform undoing it
+    private static final int[][] jumps;     // [transform][jump] -> jump
+    private static final int[][][] states;  // [transform][chunk][bits] -> state bits
+
+    static {
+        Triangle triangle = new Triangle(Board.ROWS);
+        pegs = new int[TRANSFORMS][BitBoard.PEGS];
+        for (int transform=0; transform<TRANSFORMS; transform++) {
+            for (int peg=0; peg<BitBoard.PEGS; peg++) {
+                pegs[transform][peg] = triangle.symmetry(transform, peg);
+            }
+        }
+
+        inverses = new int[TRANSFORMS];
+        for (int transform=0; transform<TRANSFORMS; transform++) {
+            for (int inverse=0; inverse<TRANSFORMS; inverse++) {
+                boolean undoes = true;
+                for (int peg=0; peg<BitBoard.PEGS; peg++) {
+                    if ( pegs[inverse][pegs[transform][peg]] != peg ) { undoes = false; }
+                }
+                if ( undoes ) { inverses[transform] = inverse; }
+            }
+        }
+
+        jumps = new int[TRANSFORMS][BitBoard.JUMPS];
+        for (int transform=0; transform<TRANSFORMS; transform++) {
+            for (int jump=0; jump<BitBoard.JUMPS; jump++) {
+                jumps[transform][jump] = BitBoard.jumpNumber(pegs[transform][BitBoard.from(jump)],
+                        pegs[transform][BitBoard.to(jump)]);
+            }
+        }
+
+        int chunks = (BitBoard.PEGS + CHUNK - 1) / CHUNK;
+        states = new int[TRANSFORMS][chunks][1 << CHUNK];
+        for (int transform=0; transform<TRANSFORMS; transform++) {
+            for (int chunk=0; chunk<chunks; chunk++) {
+                for (int bits=0; bits<(1 << CHUNK); bits++) {
+                    int state = 0;
+                    for (int bit=0; bit<CHUNK; bit++) {
+                        int peg = chunk * CHUNK + bit;
+                        if ( (bits & (1 << bit)) != 0 && peg < BitBoard.PEGS ) {
+                            state |= 1 << pegs[transform][peg];
+                        }
+                    }
+                    states[transform][chunk][bits] = state;
+                }
+            }
+        }
+    }
+
+    // Where transform moves peg
+    public static int peg(int transform, int peg) {
+        return pegs[transform][peg];
+    }
+
+    // The transform that puts everything back
+    public static int inverse(int transform) {
+        return inverses[transform];
+    }
+
+    // The jump number of jump after transform
+    public static int jump(int transform, int jump) {
+        return jumps[transform][jump];
+    }
+
+    // A BitBoard state after transform
+    public static int state(int transform, int state) {
+        int[][] tables = states[transform];
+        return tables[0][state & 0x1F] | tables[1][(state >>> 5) & 0x1F] | tables[2][(state >>> 10) & 0x1F];
+    }
+
+    // The smallest state among state and its images
+    public static int canonical(int state) {
+        return state(canonicalTransform(state), state);
+    }
+
+    // The transform that takes state to its canonical form
+    public static int canonicalTransform(int state) {
+        int best = IDENTITY;
+        int bestState = state & BitBoard.FULL;
+        for (int transform=1; transform<TRANSFORMS; transform++) {
+            int image = state(transform, state);
+            if ( image < bestState ) {
+                best = transform;
+                bestState = image;
+            }
+        }
+        return best;
+    }
+
+    // Is state its own canonical form
+    public static boolean isCanonical(int state) {
+        return canonical(state) == (state & BitBoard.FULL);
+    }
+
+    // Apply transform to every peg of a word in place
+    public static void transform(int transform, int[] word, int offset, int length) {
+        for (int index=offset; index<offset+length; index++) {
+            word[index] = pegs[transform][word[index]];
+        }
+    }
+
+    // The transform that gives the smallest word, comparing peg by peg.  A
+    // word is the empty peg followed by the from and to peg of each jump, so
+    // this also picks the smallest starting peg.
+    public static int canonicalTransform(int[] word, int offset, int length) {
+        int best = IDENTITY;
+        for (int transform=1; transform<TRANSFORMS; transform++) {
+            for (int index=offset; index<offset+length; index++) {
+                int image = pegs[transform][word[index]];
+                int bestImage = pegs[best][word[index]];
+                if ( image != bestImage ) {
+                    if ( image < bestImage ) { best = transform; }
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Transform a word to its canonical form in place, returns the transform used
+    public static int canonical(int[] word, int offset, int length) {
+        int transform = canonicalTransform(word, offset, length);
+        transform(transform, word, offset, length);
+        return transform;
+    }
+
+    // Starting pegs that are the smallest of their images, one per class of
+    // equivalent games
+    public static int[] canonicalPegs() {
+        int count = 0;
+        int[] canonical = new int[BitBoard.PEGS];
+        for (int peg=0; peg<BitBoard.PEGS; peg++) {
+            boolean smallest = true;
+            for (int transform=1; transform<TRANSFORMS; transform++) {
+                if ( pegs[transform][peg] < peg ) { smallest = false; }
+            }
+            if ( smallest ) { canonical[count++] = peg; }
+        }
+        return java.util.Arrays.copyOf(canonical, count);
+    }
+}
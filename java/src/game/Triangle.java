@@ -0,0 +1,80 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package game;
+
+// Triangular board with any number of rows.  Holes are numbered row by row
+// from the top, so row r starts at hole r * (r + 1) / 2, and the directions
+// are Board.TOPLEFT .. Board.LEFT.
+public class Triangle extends Geometry {
+    public static final int MAX_ROWS = 10;
+    public static final int DIRECTIONS = 6;
+    public static final int TRANSFORMS = 6;
+
+    // Row and column steps for each direction, Board.TOPLEFT .. Board.LEFT
+    private static final int[] rowSteps = {-1, -1, 0, 1, 1, 0};
+    private static final int[] columnSteps = {-1, 0, 1, 1, 0, -1};
+
+    // Orderings of the distances to the three sides, one per symmetry.  The
+    // first three are rotations, the rest reflections.
+    private static final int[][] orders = {
+        {0, 1, 2}, {1, 2, 0}, {2, 0, 1},
+        {1, 0, 2}, {0, 2, 1}, {2, 1, 0},
+    };
+
+    private int rows;
+
+    public Triangle(int initRows) {
+        if ( initRows < 2 || initRows > MAX_ROWS ) {
+            throw new IllegalArgumentException("Rows must be 2 to " + MAX_ROWS + ": " + initRows);
+        }
+        rows = initRows;
+        int holes = rows * (rows + 1) / 2;
+
+        int[] holeRows = new int[holes];
+        int[] holeColumns = new int[holes];
+        for (int row=0; row<rows; row++) {
+            for (int column=0; column<=row; column++) {
+                holeRows[row * (row + 1) / 2 + column] = row;
+                holeColumns[row * (row + 1) / 2 + column] = column;
+            }
+        }
+
+        // A hole at row r, column c is c, r - c and rows - 1 - r from the
+        // three sides, each symmetry reorders those distances
+        int[][] symmetries = new int[TRANSFORMS][holes];
+        for (int transform=0; transform<TRANSFORMS; transform++) {
+            for (int hole=0; hole<holes; hole++) {
+                int[] sides = {holeColumns[hole], holeRows[hole] - holeColumns[hole], rows - 1 - holeRows[hole]};
+                int row = rows - 1 - sides[orders[transform][2]];
+                int column = sides[orders[transform][0]];
+                symmetries[transform][hole] = row * (row + 1) / 2 + column;
+            }
+        }
+
+        init(holeRows, holeColumns, rowSteps, columnSteps, symmetries);
+    }
+
+    public int rows() { return rows; }
+
+    // Each row is centered, pegs in a row are two peg widths apart and rows
+    // overlap by half a peg
+    public int layoutRow(int hole) { return row(hole); }
+    public int layoutColumn(int hole) { return rows - 1 - row(hole) + column(hole) * 2; }
+}
@@ -25,7 +25,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.*;
 import java.io.IOException;
-import javax.imageio.*;
 
 // Gui representation of a Board object
 public class GuiBoard extends Canvas implements MouseListener, ObjectListener {
@@ -35,39 +34,56 @@ public class GuiBoard extends Canvas implements MouseListener, ObjectListener {
     // Keep track of the last peg clicked
     private Peg lastPegClicked = null;
 
-    private static final int preferredHeight = 234;
-    private static final int preferredWidth = 315;
+    private int preferredHeight;
+    private int preferredWidth;
 
-    private static final int preferredPegHeight = 76;
-    private static final int preferredPegWidth = 35;
+    private static final int preferredPegHeight = PegSprites.PEG_HEIGHT;
+    private static final int preferredPegWidth = PegSprites.PEG_WIDTH;
 
-    // This is [row][col] for x,y translation.  Returns the peg clicked, or -1
-    private static final int[][] pegClickMatrix = {
-        { -1, -1, -1, -1,  0, -1, -1, -1, -1},
-        { -1, -1, -1,  1,  0,  2, -1, -1, -1},
-        { -1, -1,  3,  1,  4,  2,  5, -1, -1},
-        { -1,  6,  3,  7,  4,  8,  5,  9, -1},
-        { 10,  6, 11,  7, 12,  8, 13,  9, 14},
-        { 10, -1, 11, -1, 12, -1, 13, -1, 14},
-    };
+    // This is [row][col] for x,y translation.  Returns the peg clicked, or -1.
+    // Each peg covers one column and two half height rows, placed by the
+    // board's Geometry.
+    private int[][] pegClickMatrix;
 
-    // Images of a page indexed by the state value
-    private BufferedImage[] pegImages;
+    // Rendering at the current size, see paint()
+    private BufferedImage backBuffer;
+    private Graphics2D backGraphics;
+    private BufferedImage atlas;    // a sprite for each peg state, see PegSprites
+    private int[] drawnStates;      // state each peg has in backBuffer
+    private float scaleX = 1;
+    private float scaleY = 1;
 
     public GuiBoard(Board initBoard) {
         board = initBoard;
         board.eventHandler().register(this);
 
+        Geometry geometry = board.geometry();
+        int rows = 0;
+        int columns = 0;
+        for (int peg=0; peg<board.pegs(); peg++) {
+            rows = Math.max(rows, geometry.layoutRow(peg) + 2);
+            columns = Math.max(columns, geometry.layoutColumn(peg) + 1);
+        }
+        preferredWidth = preferredPegWidth * columns;
+        preferredHeight = preferredPegHeight / 2 * rows + 6;
+
+        pegClickMatrix = new int[rows][columns];
+        for (int row=0; row<pegClickMatrix.length; row++) {
+            java.util.Arrays.fill(pegClickMatrix[row], -1);
+        }
+        for (int peg=0; peg<board.pegs(); peg++) {
+            int row = geometry.layoutRow(peg);
+            int column = geometry.layoutColumn(peg);
+            pegClickMatrix[row][column] = peg;
+            pegClickMatrix[row + 1][column] = peg;
+        }
+
         this.setSize(preferredWidth, preferredHeight);
+        drawnStates = new int[board.pegs()];
 
+        // Make sure the shared images can be read before anything is drawn
         try {
-            BufferedImage[] initPegImages = {
-                ImageIO.read(getClass().getResourceAsStream("/images/pegEmpty.PNG")),
-                ImageIO.read(getClass().getResourceAsStream("/images/pegFilled.PNG")),
-                ImageIO.read(getClass().getResourceAsStream("/images/pegSelected.PNG")),
-                ImageIO.read(getClass().getResourceAsStream("/images/pegToBeJumped.PNG")),};
-            pegImages = initPegImages;
-
+            PegSprites.images();
         } catch (IOException e) {
             System.exit(0);
         }
@@ -85,70 +101,91 @@ public class GuiBoard extends Canvas implements MouseListener, ObjectListener {
     }
     public Peg lastPegClicked() { return lastPegClicked; }
 
+    // Pegs are drawn into a back buffer the size of the canvas from sprites
+    // scaled to fit it, both made again only when the size changes.  The
+    // buffer remembers which state each peg was drawn in, so a paint only
+    // redraws the pegs that changed and copies the clip to the screen.
     @Override
     public void paint(Graphics g) {
-        // Paint a buffered image to be scaled to current window
-        java.awt.Image bufferImage = createImage(preferredWidth, preferredHeight);
-        paintPreferredSize(bufferImage.getGraphics());
-
-        // Scale the current window size
         int width = getWidth();
         int height = getHeight();
-        ReplicateScaleFilter scale = new ReplicateScaleFilter(width, height);
-        FilteredImageSource fis = new FilteredImageSource(bufferImage.getSource(), scale);
-        Image scaledImage = createImage(fis);
+        if ( width <= 0 || height <= 0 ) { return; }
 
-        g.drawImage(scaledImage, 0, 0, null);
+        if ( backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height ) {
+            resizeBuffer(width, height);
+        }
+
+        for (int peg=0; peg<board.pegs(); peg++) {
+            int pegState = board.peg(peg).state();
+            if ( drawnStates[peg] != pegState ) {
+                drawPeg(peg, pegState);
+            }
+        }
+
+        g.drawImage(backBuffer, 0, 0, null);
     }
-    private void paintPreferredSize(Graphics g) {
-        Graphics2D g2 = (Graphics2D)g;
-
-        // Draw each peg on the board
-        float boardCenter = preferredWidth / 2;
-        float pegCenter = preferredPegWidth / 2;
-        float pegMiddle = preferredPegHeight / 2;
-
-        // Row 1 has just peg1
-        drawPeg(g, board.peg(0), Math.round(boardCenter-pegCenter), 0);
-
-        // Row 2 has peg2, peg3
-        drawPeg(g, board.peg(1), Math.round(boardCenter-pegCenter-preferredPegWidth), Math.round(pegMiddle));
-        drawPeg(g, board.peg(2), Math.round(boardCenter+pegCenter), Math.round(pegMiddle));
-
-        // Row 3 has peg4 - peg6
-        drawPeg(g, board.peg(3), Math.round(boardCenter-pegCenter-preferredPegWidth*2), Math.round(pegMiddle*2));
-        drawPeg(g, board.peg(4), Math.round(boardCenter-pegCenter), Math.round(pegMiddle*2));
-        drawPeg(g, board.peg(5), Math.round(boardCenter+pegCenter+preferredPegWidth), Math.round(pegMiddle*2));
-
-        // Row 4 has peg7 - peg10
-        drawPeg(g, board.peg(6), Math.round(boardCenter-pegCenter-preferredPegWidth*3), Math.round(pegMiddle*3));
-        drawPeg(g, board.peg(7), Math.round(boardCenter-pegCenter-preferredPegWidth), Math.round(pegMiddle*3));
-        drawPeg(g, board.peg(8), Math.round(boardCenter+pegCenter), Math.round(pegMiddle*3));
-        drawPeg(g, board.peg(9), Math.round(boardCenter+pegCenter+preferredPegWidth*2), Math.round(pegMiddle*3));
-
-        // Row 5 has peg11 - peg15
-        drawPeg(g, board.peg(10), Math.round(boardCenter-pegCenter-preferredPegWidth*4), Math.round(pegMiddle*4));
-        drawPeg(g, board.peg(11), Math.round(boardCenter-pegCenter-preferredPegWidth*2), Math.round(pegMiddle*4));
-        drawPeg(g, board.peg(12), Math.round(boardCenter-pegCenter), Math.round(pegMiddle*4));
-        drawPeg(g, board.peg(13), Math.round(boardCenter+pegCenter+preferredPegWidth), Math.round(pegMiddle*4));
-        drawPeg(g, board.peg(14), Math.round(boardCenter+pegCenter+preferredPegWidth*3), Math.round(pegMiddle*4));
 
+    // Canvas.update() clears to the background before calling paint(), which
+    // flickers.  The back buffer covers the whole canvas, so skip the clear.
+    @Override
+    public void update(Graphics g) {
+        paint(g);
     }
-    private void drawPeg(Graphics g, Peg peg, int x, int y) {
-        Graphics2D g2 = (Graphics2D)g;
 
-        g2.drawImage(pegImages[peg.state()], null, x, y);
+    // New buffer and sprites for this size, every peg is drawn again
+    private void resizeBuffer(int width, int height) {
+        if ( backGraphics != null ) { backGraphics.dispose(); }
+
+        scaleX = (float)width / preferredWidth;
+        scaleY = (float)height / preferredHeight;
+        backBuffer = PegSprites.image(getGraphicsConfiguration(), width, height, Transparency.OPAQUE);
+        backGraphics = backBuffer.createGraphics();
+        backGraphics.setColor(getBackground());
+        backGraphics.fillRect(0, 0, width, height);
+
+        // A pixel over so rounding never leaves a gap, drawPeg clips to the cell
+        int spriteWidth = (int) Math.ceil(preferredPegWidth * scaleX) + 1;
+        int spriteHeight = (int) Math.ceil(preferredPegHeight * scaleY) + 1;
+        try {
+            atlas = PegSprites.atlas(getGraphicsConfiguration(), spriteWidth, spriteHeight);
+        } catch (IOException e) {
+            System.exit(0);
+        }
+
+        java.util.Arrays.fill(drawnStates, -1);
+    }
+    // Draw one peg into the back buffer over a cleared cell
+    private void drawPeg(int peg, int pegState) {
+        Rectangle cell = cell(peg);
+        backGraphics.setClip(cell.x, cell.y, cell.width, cell.height);
+        backGraphics.fillRect(cell.x, cell.y, cell.width, cell.height);
+        PegSprites.draw(backGraphics, atlas, pegState, cell.x, cell.y);
+        backGraphics.setClip(null);
+
+        drawnStates[peg] = pegState;
     }
 
-    @Override
-    public void update(Graphics g) { paint(g); }
+    // Where peg is drawn at the current size.  Cells meet exactly, each edge
+    // is rounded once however many cells share it.
+    private Rectangle cell(int peg) {
+        Geometry geometry = board.geometry();
+        int column = geometry.layoutColumn(peg);
+        int row = geometry.layoutRow(peg);
+        int left = Math.round(preferredPegWidth * column * scaleX);
+        int top = Math.round(preferredPegHeight / 2 * row * scaleY);
+        int right = Math.round(preferredPegWidth * (column + 1) * scaleX);
+        int bottom = Math.round(preferredPegHeight / 2 * (row + 2) * scaleY);
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
 
     // Return the peg object that cooresponds to the x,y coordinates, null otherwise
     private Peg pegClicked(int x, int y) {
         int column = x/preferredPegWidth;
         int row = y/(preferredPegHeight/2);
 
-        if ( column < 0 || row < 0 || column > 8 || row > 5 ) { return null; }
+        if ( column < 0 || row < 0 || row >= pegClickMatrix.length || column >= pegClickMatrix[row].length ) {
+            return null;
+        }
 
         return board.peg(pegClickMatrix[row][column]);
     }
@@ -182,8 +219,22 @@ public class GuiBoard extends Canvas implements MouseListener, ObjectListener {
 
     }
 
-    // Board object was updated, repaint
+    // Board object was updated, repaint the pegs that changed
     public void objectUpdated(ObjectHandler o) {
-        this.repaint();
+        if ( o.changed() == ObjectHandler.ALL || backBuffer == null ) {
+            this.repaint();
+            return;
+        }
+
+        Rectangle dirty = null;
+        for (int peg=0; peg<board.pegs(); peg++) {
+            if ( ! o.changed(peg) ) { continue; }
+
+            Rectangle bounds = cell(peg);
+            dirty = dirty == null ? bounds : dirty.union(bounds);
+        }
+        if ( dirty != null ) {
+            this.repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+        }
     }
 }
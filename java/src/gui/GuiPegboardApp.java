@@ -24,18 +24,29 @@ import data.*;
 import game.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.logging.*;
 import javax.swing.*;
+import solver.*;
 
 // Main interface for running this board
 public class GuiPegboardApp extends JFrame implements ObjectListener, ActionListener {
-    private Dawg solutions;     // All solutions
-    private Dawg currentMove;   // Current solution path
+    private IndexedDawg solutions;  // All solutions, see solutionsLoaded()
+    private boolean standardBoard = false;  // The only board with solutions
+    private DawgCursor currentMove; // Current solution path, see startMove()
+    private Hints hints;        // See hints()
+    private Solvability solvability;    // See solvability()
+    private LongSolver liveSolver;  // See liveSolver()
+    private int transform = Symmetry.IDENTITY;  // Game to DAWG symmetry, see startMove()
 
     // Game and GUI objects
     private Board board;
     private GuiBoard guiBoard;
     private JLabel messageLabel;
     private JLabel solutionsLabel;
+    private JLabel statusLabel;
     private int state = PICKING_EMPTY;
 
     // Keep track of the peg we are jumping from
@@ -47,51 +58,101 @@ public class GuiPegboardApp extends JFrame implements ObjectListener, ActionList
     public static final int JUMPING = 2;
     public static final int FINISHED = 3;
 
-    // Factors for translating peg nubmers after rotation.
-    // factors[peg][# of rotations]
-    public static final Integer[][] factors = {
-        {0, 14, 10},
-        {1, 9, 11},
-        {2, 13, 6},
-        {3, 5, 12},
-        {4, 8, 7},
-        {5, 12, 3},
-        {6, 2, 13},
-        {7, 4, 8},
-        {8, 7, 4},
-        {9, 11, 1},
-        {10, 0, 14},
-        {11, 1, 9},
-        {12, 3, 5},
-        {13, 6, 2},
-        {14, 10, 0},};
-
-    // Number of rotations required to position the peg into the starting 5 (0-4)
-    public static final Integer[] rotations = {
-        0, 0, 0, 0, 0,
-        2, 1, 1, 2, 2,
-        1, 1, 1, 2, 2,};
-
     // Start the app
     public GuiPegboardApp() {
-        // Master solutions
-        solutions = new Dawg(getClass().getResourceAsStream("/data/solutions.dawg"));
+        this(new Triangle(Board.ROWS));
+    }
+    public GuiPegboardApp(Geometry geometry) {
+        initComponents(geometry);
+
+        // The solutions only cover the standard board
+        if ( ! (geometry instanceof Triangle) || ((Triangle) geometry).rows() != Board.ROWS ) { return; }
+
+        standardBoard = true;
+
+        // Master solutions, loaded in the background while the board is shown
+        // and handed to the event queue when done.  A failed load is logged
+        // and the game goes on without them.
+        loadSolutions(new ProgressMonitorListener(this, "Reading Dictionary"))
+                .thenApply(new Function<CompactDawg, IndexedDawg>() {
+                    public IndexedDawg apply(CompactDawg dawg) {
+                        // Count the words here rather than on the first jump
+                        dawg.solutions(dawg.root());
+                        return dawg;
+                    }
+                })
+                .exceptionally(new Function<Throwable, IndexedDawg>() {
+                    public IndexedDawg apply(Throwable ex) {
+                        Logger.getLogger(GuiPegboardApp.class.getName()).log(Level.SEVERE, null, ex);
+                        return null;
+                    }
+                })
+                .thenAcceptAsync(new Consumer<IndexedDawg>() {
+                    public void accept(IndexedDawg dawg) {
+                        solutionsLoaded(dawg);
+                    }
+                }, new Executor() {
+                    public void execute(Runnable task) {
+                        SwingUtilities.invokeLater(task);
+                    }
+                });
+    }
 
-        initComponents();
+    // The dictionary made by the ant build.  Classes compiled some other way,
+    // with plain javac or an IDE, do not have it, so it is solved here instead.
+    private static CompletableFuture<CompactDawg> loadSolutions(final ProgressListener listener) {
+        InputStream is = GuiPegboardApp.class.getResourceAsStream("/data/solutions.dawg");
+        if ( is != null ) { return CompactDawg.load(is, listener); }
+
+        return CompletableFuture.supplyAsync(new Supplier<CompactDawg>() {
+            public CompactDawg get() {
+                Solver solver = new Solver();
+                int root = solver.solve(Symmetry.canonicalPegs());
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try {
+                    solver.writer().write(bytes, root);
+                    return new CompactDawg(new ByteArrayInputStream(bytes.toByteArray()), listener);
+                } catch (IOException ex) {
+                    throw new CompletionException(ex);
+                }
+            }
+        });
+    }
+
+    // Master solutions, null until they are loaded or when there are none
+    // for this size of board.
+    private IndexedDawg solutions() {
+        return solutions;
+    }
+
+    // The solutions arrived, catch up with any game already under way
+    private void solutionsLoaded(IndexedDawg dawg) {
+        if ( dawg == null ) { return; }
+
+        solutions = dawg;
+        if ( board.getEmptyPeg() == null ) { return; }
+
+        currentMove = startMove(board.getEmptyPeg().value());
+        for (int move=0; move<board.moveCount(); move++) {
+            currentMove.advance(rotatedPeg(board.moveFrom(move)));
+            currentMove.advance(rotatedPeg(board.moveTo(move)));
+        }
+        updateSolutionsLabel();
     }
 
     // Init the GUI componenents
-    public void initComponents() {
+    public void initComponents(Geometry geometry) {
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         // Game components
-        board = new Board();
+        board = new Board(geometry);
         guiBoard = new GuiBoard(board);
         guiBoard.eventHandler().register(this);
 
         messageLabel = new JLabel("Select the peg to be empty.");
         JLabel solutionsTextLabel = new JLabel("Solutions left:");
         solutionsLabel = new JLabel("0");
+        statusLabel = new JLabel(" ");
 
         JPanel buttonBox = new JPanel();
         JButton resetButton = new JButton("Start Over");
@@ -120,6 +181,7 @@ public class GuiPegboardApp extends JFrame implements ObjectListener, ActionList
         this.getContentPane().add(separator2, c2);
         this.getContentPane().add(solutionsTextLabel, c1);
         this.getContentPane().add(solutionsLabel, c1);
+        this.getContentPane().add(statusLabel, c1);
         this.getContentPane().add(buttonBox, c1);
         this.pack();
 
@@ -137,44 +199,122 @@ public class GuiPegboardApp extends JFrame implements ObjectListener, ActionList
 
 
     // Instead of having a DAWG with every possible move, we have a DAWG with moves for
-    // blank pegs in 0-4.  For the other pegs we rotate the board clockwise and translate
-    // the pegs to the new position.
+    // some of the blank pegs.  The other games are a rotation or reflection of one of
+    // those, so we transform the pegs to match the game in the DAWG.  The cursor
+    // is made once and reused for every game, null without a DAWG.
+    private DawgCursor startMove(int emptyPeg) {
+        transform = Symmetry.IDENTITY;
+        if ( solutions() == null ) { return null; }
+
+        for (int t=0; t<Symmetry.TRANSFORMS; t++) {
+            if ( solutions().hasChild(solutions().root(), Symmetry.peg(t, emptyPeg)) ) {
+                transform = t;
+                break;
+            }
+        }
+
+        DawgCursor cursor = currentMove != null ? currentMove : new DawgCursor(solutions());
+        cursor.reset();
+        cursor.advance(rotatedPeg(emptyPeg));
+        return cursor;
+    }
 
     // rotatePeg takes a peg from the game and converts it to a peg in the DAWG
     public int rotatedPeg(int peg) {
-        if ( board.getEmptyPeg() == null ) { return peg; }
-
-        return factors[peg][rotations[board.getEmptyPeg().value()]];
+        return Symmetry.peg(transform, peg);
     }
 
     // unRotatePeg takes a peg from the DAWG and converts it to a peg in the game
     public int unRotatedPeg(int peg) {
-        if ( board.getEmptyPeg() == null ) { return peg; }
+        return Symmetry.peg(Symmetry.inverse(transform), peg);
+    }
+
+    // Ranked jumps for the standard board, made the first time a hint is asked for
+    private Hints hints() {
+        if ( hints == null ) { hints = new Hints(); }
+        return hints;
+    }
+
+    // Outlook for every position of the standard board, made the first time
+    // the status is shown.  Null on any other board.
+    private Solvability solvability() {
+        if ( solvability == null && standardBoard ) { solvability = new Solvability(); }
+        return solvability;
+    }
 
-        int reverseRotations = 3 - rotations[board.getEmptyPeg().value()];
+    // Solver for any other board, made the first time a hint is asked for
+    private LongSolver liveSolver() {
+        if ( liveSolver == null ) { liveSolver = new LongSolver(board.geometry()); }
+        return liveSolver;
+    }
+
+    // Reveal the best jump from here.  Inside the DAWG its cached counts rank
+    // the jumps, anywhere else the state tables or the live solver pick one.
+    private void showHint() {
+        if ( board.getEmptyPeg() == null || ! board.hasMovesLeft() ) { return; }
 
-        if ( reverseRotations == 3 ) {
-            return peg;
+        if ( currentMove != null && currentMove.inDictionary() ) {
+            Hint[] best = Hints.best(solutions(), currentMove.node(), 1);
+            if ( best.length > 0 ) {
+                board.showMove(unRotatedPeg(best[0].from()), unRotatedPeg(best[0].to()));
+            }
+        } else if ( standardBoard ) {
+            Hint[] best = hints().best((int) board.state(), 1);
+            if ( best.length > 0 ) {
+                board.showMove(best[0].from(), best[0].to());
+            }
+        } else {
+            Geometry geometry = board.geometry();
+            int[] jumps = new int[geometry.holes()];
+            if ( liveSolver().solve(board.state(), jumps) > 0 ) {
+                board.showMove(geometry.from(jumps[0]), geometry.to(jumps[0]));
+            }
         }
-        return factors[peg][reverseRotations];
     }
 
-    // Main function, start the thread
+    // Main function, start the thread: GuiPegboardApp [rows | english | european]
     public static void main(String args[]) {
+        final Geometry geometry;
+        if ( args.length == 0 ) {
+            geometry = new Triangle(Board.ROWS);
+        } else if ( args[0].equals("english") ) {
+            geometry = Cross.english();
+        } else if ( args[0].equals("european") ) {
+            geometry = Cross.european();
+        } else {
+            geometry = new Triangle(Integer.parseInt(args[0]));
+        }
+
         java.awt.EventQueue.invokeLater(new Runnable() {
             public void run() {
-                new GuiPegboardApp().setVisible(true);
+                new GuiPegboardApp(geometry).setVisible(true);
             }
         });
     }
 
-    // Set the number of solutions based on the current position of the DAWG
+    // Set the number of solutions based on the current position of the DAWG,
+    // and the outlook from the board itself so it holds whatever the moves
     public void updateSolutionsLabel() {
-        if (currentMove != null) {
-            solutionsLabel.setText("" + currentMove.solutions());
+        if ( currentMove != null && board.getEmptyPeg() != null ) {
+            solutionsLabel.setText("" + currentMove.solutionsRemaining());
         } else {
             solutionsLabel.setText("0");
         }
+
+        if ( board.getEmptyPeg() == null || ! board.hasMovesLeft() || solvability() == null ) {
+            statusLabel.setText(" ");
+            return;
+        }
+
+        int position = (int) board.state();
+        int minPegs = solvability().minPegs(position);
+        if ( minPegs == 1 ) {
+            statusLabel.setText("Can still win, " + solvability().winningJumps(position) + " winning jumps");
+        } else if ( minPegs > 1 ) {
+            statusLabel.setText("Best finish: " + minPegs + " pegs");
+        } else {
+            statusLabel.setText(" ");
+        }
     }
 
     // guiBoard was clicked, capture the peg and take action based on the current state
@@ -189,7 +329,7 @@ public class GuiPegboardApp extends JFrame implements ObjectListener, ActionList
                     board.setEmptyPeg(selectedPeg);
                     state = WAITING;
 
-                    currentMove = solutions.child(rotatedPeg(selectedPeg.value()));
+                    currentMove = startMove(selectedPeg.value());
                     messageLabel.setText("Select the peg to move");
 
                     updateSolutionsLabel();
@@ -208,23 +348,27 @@ public class GuiPegboardApp extends JFrame implements ObjectListener, ActionList
 
             // Chosing a spot to land in after selecting a peg.
             } else if ( state == JUMPING ) {
+                // The jump and the clear go to the board's listeners as one update
                 Peg toPeg = guiBoard.lastPegClicked();
-                if ( toPeg != null ) {
-                    if (board.jump(fromPeg.value(), toPeg.value())) {
-                        // Advance the currentMove DAWG
-                        if (currentMove != null) {
-                            currentMove = currentMove.child(rotatedPeg(fromPeg.value()));
+                board.eventHandler().begin();
+                try {
+                    if ( toPeg != null ) {
+                        if (board.jump(fromPeg.value(), toPeg.value())) {
+                            // Advance the currentMove DAWG
+                            if (currentMove != null) {
+                                currentMove.advance(rotatedPeg(fromPeg.value()));
+                                currentMove.advance(rotatedPeg(toPeg.value()));
+                            }
+
+                            updateSolutionsLabel();
                         }
-                        if (currentMove != null) {
-                            currentMove = currentMove.child(rotatedPeg(toPeg.value()));
-                        }
-
-                        updateSolutionsLabel();
                     }
-                }
 
-                // Change state back to WAITING no matter what was clicked
-                board.clear();
+                    // Change state back to WAITING no matter what was clicked
+                    board.clear();
+                } finally {
+                    board.eventHandler().end();
+                }
                 state = WAITING;
 
                 // Still moves left, continue with the game
@@ -251,53 +395,25 @@ public class GuiPegboardApp extends JFrame implements ObjectListener, ActionList
         if ( e.getActionCommand().equals("reset") ) {
             state = PICKING_EMPTY;
             board.reset();
-            currentMove = null;
+            if ( currentMove != null ) { currentMove.reset(); }
 
             messageLabel.setText("Select the peg to be empty.");
             updateSolutionsLabel();
 
         // Reveal the best move on the board, if one exists
         } else if ( e.getActionCommand().equals("hint") ) {
-            if ( currentMove != null && board.hasMovesLeft() ) {
-                // Walk the DAWG to find the best starting peg
-                Dawg bestChild1 = currentMove.child();
-                Dawg child = currentMove.child();
-                while ( child != null ) {
-                    if ( child.solutions() > bestChild1.solutions() ) {
-                        bestChild1 = child;
-                    }
-                    child = child.sibling();
-                }
+            showHint();
 
-                // Walk the DAWG to find the best landing spot
-                Dawg bestChild2 = bestChild1.child();
-                child = bestChild2;
-                while ( child != null ) {
-                    if ( child.solutions() > bestChild1.solutions() ) {
-                        bestChild1 = child;
-                    }
-                    child = child.sibling();
-                }
-
-                // Reveal move if it exists
-                if ( bestChild1 != null && bestChild2 != null ) {
-                    board.showMove(unRotatedPeg(bestChild1.value()), unRotatedPeg(bestChild2.value()));
-                }
-            }
-
-        // Undo the last move made, update the currentMove DAWG as well.
+        // Undo the last move made, the currentMove DAWG steps back over its
+        // from and to pegs as well.
         } else if ( e.getActionCommand().equals("undo") ) {
+            int moves = board.moveCount();
             board.undo();
             if ( board.getEmptyPeg() == null ) { return; }
 
-            currentMove = solutions.child(rotatedPeg(board.getEmptyPeg().value()));
-            Object[] moves = board.moves();
-            int count = 0;
-
-            // Walk the moves array and update the currentMove
-            while ( count < moves.length && currentMove != null ) {
-                currentMove = currentMove.child(rotatedPeg((Integer)moves[count]));
-                count++;
+            if ( board.moveCount() < moves && currentMove != null ) {
+                currentMove.back();
+                currentMove.back();
             }
 
             updateSolutionsLabel();
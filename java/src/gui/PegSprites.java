@@ -0,0 +1,107 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package gui;
+
+import game.*;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.IOException;
+import java.util.*;
+import javax.imageio.*;
+
+// The peg images, read once and shared by every board on screen.  Boards
+// draw from an atlas: one image with a sprite for each Peg state side by
+// side, scaled to the size the board wants.  Atlases are kept by size, so
+// boards of different sizes (the main board and the spectator cells) each
+// find theirs again instead of rebuilding one shared slot.
+final class PegSprites {
+    public static final int PEG_WIDTH = 35;
+    public static final int PEG_HEIGHT = 76;
+
+    private static final String[] FILES = {
+        "/images/pegEmpty.PNG",
+        "/images/pegFilled.PNG",
+        "/images/pegSelected.PNG",
+        "/images/pegToBeJumped.PNG",
+    };
+
+    // How many atlases to keep, the least recently used goes first
+    private static final int ATLASES = 8;
+
+    private static BufferedImage[] images = null;
+    // Atlases by width and height
+    private static final Map<Long, BufferedImage> atlases =
+            new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                    return size() > ATLASES;
+                }
+            };
+
+    private PegSprites() { }
+
+    // The images at their own size, indexed by Peg state
+    static synchronized BufferedImage[] images() throws IOException {
+        if ( images == null ) {
+            BufferedImage[] read = new BufferedImage[FILES.length];
+            for (int index=0; index<FILES.length; index++) {
+                read[index] = ImageIO.read(PegSprites.class.getResourceAsStream(FILES[index]));
+            }
+            images = read;
+        }
+        return images;
+    }
+
+    // Every state scaled to width x height, state n starts at n * width
+    static synchronized BufferedImage atlas(GraphicsConfiguration config, int width, int height)
+            throws IOException {
+        Long size = ((long) width << 32) | height;
+        BufferedImage atlas = atlases.get(size);
+        if ( atlas != null ) { return atlas; }
+
+        atlas = image(config, width * FILES.length, height, Transparency.TRANSLUCENT);
+        Graphics2D g2 = atlas.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int state=0; state<FILES.length; state++) {
+            g2.drawImage(images()[state], state * width, 0, width, height, null);
+        }
+        g2.dispose();
+
+        atlases.put(size, atlas);
+        return atlas;
+    }
+
+    // Draw the sprite for state with its top left at x, y
+    static void draw(Graphics g, BufferedImage atlas, int state, int x, int y) {
+        int width = atlas.getWidth() / FILES.length;
+        int height = atlas.getHeight();
+        g.drawImage(atlas, x, y, x + width, y + height, state * width, 0, (state + 1) * width, height, null);
+    }
+
+    // An image that draws quickly on config, or a plain one without a screen
+    static BufferedImage image(GraphicsConfiguration config, int width, int height, int transparency) {
+        if ( config != null ) { return config.createCompatibleImage(width, height, transparency); }
+
+        return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,48 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package gui;
+
+import data.*;
+import java.awt.*;
+import javax.swing.*;
+
+// Shows dictionary loading progress in a Swing progress monitor.  Progress is
+// reported from the loading thread, so updates are handed to the event queue.
+public class ProgressMonitorListener implements ProgressListener {
+    private Component parent;
+    private String message;
+    private ProgressMonitor monitor = null;
+
+    public ProgressMonitorListener(Component initParent, String initMessage) {
+        parent = initParent;
+        message = initMessage;
+    }
+
+    public void progress(final int nodesRead, final int nodeCount) {
+        EventQueue.invokeLater(new Runnable() {
+            public void run() {
+                if ( monitor == null ) {
+                    monitor = new ProgressMonitor(parent, message, null, 0, nodeCount);
+                }
+                monitor.setProgress(nodesRead);
+            }
+        });
+    }
+}
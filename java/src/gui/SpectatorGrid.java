@@ -0,0 +1,249 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package gui;
+
+import game.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.*;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import javax.swing.*;
+
+// Many boards in one lightweight component, for showing games as they are
+// played.  Each board is only its packed state, bit n set when peg n is
+// filled, and setState() may be called from any thread as often as it likes.
+//
+// Nothing is drawn when a state changes.  A Swing timer looks at the states
+// a fixed number of times a second, draws the pegs that changed into a back
+// buffer from the shared PegSprites atlas, and repaints the boards they are
+// on.  Painting copies the back buffer, so a frame costs the pegs that moved
+// however many updates arrived since the last one.
+public class SpectatorGrid extends JComponent implements ActionListener {
+    private static final long serialVersionUID = 1L;
+
+    public static final int FRAMES_PER_SECOND = 30;
+    public static final int PEG_WIDTH = 12;
+
+    private static final int GAP = 8;
+
+    private Geometry geometry;
+    private int columns;
+    private int pegWidth;
+    private int pegHeight;
+    private int boardWidth;
+    private int boardHeight;
+
+    private AtomicLongArray states;     // written by anyone
+    private long[] drawnStates;         // what backBuffer shows, frames only
+
+    private BufferedImage backBuffer;
+    private Graphics2D backGraphics;
+    private BufferedImage atlas;
+    private javax.swing.Timer timer;
+
+    public SpectatorGrid(Geometry initGeometry, int boards, int initColumns) {
+        this(initGeometry, boards, initColumns, PEG_WIDTH, FRAMES_PER_SECOND);
+    }
+    public SpectatorGrid(Geometry initGeometry, int boards, int initColumns, int initPegWidth, int framesPerSecond) {
+        geometry = initGeometry;
+        columns = initColumns;
+        pegWidth = initPegWidth;
+        // Kept even so the half height rows meet exactly
+        pegHeight = 2 * Math.round((float)pegWidth * PegSprites.PEG_HEIGHT / PegSprites.PEG_WIDTH / 2);
+
+        // Board size in peg widths across and half peg heights down
+        int layoutColumns = 0;
+        int layoutRows = 0;
+        for (int peg=0; peg<geometry.holes(); peg++) {
+            layoutColumns = Math.max(layoutColumns, geometry.layoutColumn(peg) + 1);
+            layoutRows = Math.max(layoutRows, geometry.layoutRow(peg) + 2);
+        }
+        boardWidth = pegWidth * layoutColumns;
+        boardHeight = pegHeight / 2 * layoutRows;
+
+        states = new AtomicLongArray(boards);
+        drawnStates = new long[boards];
+        for (int board=0; board<boards; board++) {
+            states.set(board, geometry.full());
+        }
+
+        int rows = (boards + columns - 1) / columns;
+        setPreferredSize(new Dimension(columns * (boardWidth + GAP) + GAP, rows * (boardHeight + GAP) + GAP));
+        setOpaque(true);
+        setBackground(Color.WHITE);
+
+        timer = new javax.swing.Timer(1000 / framesPerSecond, this);
+        timer.setCoalesce(true);
+    }
+
+    public Geometry geometry() { return geometry; }
+    public int boards() { return states.length(); }
+
+    // Show state on board, drawn with the next frame
+    public void setState(int board, long state) {
+        states.set(board, state);
+    }
+    public long state(int board) {
+        return states.get(board);
+    }
+
+    // Only run the timer while there is somewhere to draw
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        timer.start();
+    }
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    // A frame: bring the back buffer up to date and repaint what changed
+    public void actionPerformed(ActionEvent e) {
+        if ( backBuffer == null && ! createBuffer() ) { return; }
+
+        Rectangle dirty = null;
+        for (int board=0; board<drawnStates.length; board++) {
+            long state = states.get(board);
+            long changed = state ^ drawnStates[board];
+            if ( changed == 0 ) { continue; }
+
+            int x = boardX(board);
+            int y = boardY(board);
+            drawPegs(x, y, state, changed);
+            drawnStates[board] = state;
+
+            Rectangle bounds = new Rectangle(x, y, boardWidth, boardHeight);
+            dirty = dirty == null ? bounds : dirty.union(bounds);
+        }
+        if ( dirty != null ) {
+            repaint(dirty);
+        }
+    }
+
+    private boolean createBuffer() {
+        Dimension size = getPreferredSize();
+        try {
+            atlas = PegSprites.atlas(getGraphicsConfiguration(), pegWidth, pegHeight);
+        } catch (IOException ex) {
+            return false;
+        }
+        backBuffer = PegSprites.image(getGraphicsConfiguration(), size.width, size.height, Transparency.OPAQUE);
+        backGraphics = backBuffer.createGraphics();
+        backGraphics.setColor(getBackground());
+        backGraphics.fillRect(0, 0, size.width, size.height);
+
+        // Every board starts out drawn with no pegs at all
+        for (int board=0; board<drawnStates.length; board++) {
+            drawPegs(boardX(board), boardY(board), 0, geometry.full());
+            drawnStates[board] = 0;
+        }
+        return true;
+    }
+
+    // Draw the pegs in changed for a board at x, y showing state
+    private void drawPegs(int x, int y, long state, long changed) {
+        for (int peg=0; peg<geometry.holes(); peg++) {
+            if ( (changed & (1L << peg)) == 0 ) { continue; }
+
+            int pegX = x + pegWidth * geometry.layoutColumn(peg);
+            int pegY = y + pegHeight / 2 * geometry.layoutRow(peg);
+            backGraphics.setClip(pegX, pegY, pegWidth, pegHeight);
+            backGraphics.fillRect(pegX, pegY, pegWidth, pegHeight);
+            PegSprites.draw(backGraphics, atlas, (state & (1L << peg)) != 0 ? Peg.FILLED : Peg.EMPTY, pegX, pegY);
+        }
+        backGraphics.setClip(null);
+    }
+
+    private int boardX(int board) {
+        return GAP + (board % columns) * (boardWidth + GAP);
+    }
+    private int boardY(int board) {
+        return GAP + (board / columns) * (boardHeight + GAP);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if ( backBuffer == null ) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            return;
+        }
+        g.drawImage(backBuffer, 0, 0, null);
+    }
+
+    // Watch random games: SpectatorGrid [boards [rows | english | european]]
+    public static void main(String args[]) {
+        final int boards = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        final Geometry geometry;
+        if ( args.length < 2 ) {
+            geometry = new Triangle(Board.ROWS);
+        } else if ( args[1].equals("english") ) {
+            geometry = Cross.english();
+        } else if ( args[1].equals("european") ) {
+            geometry = Cross.european();
+        } else {
+            geometry = new Triangle(Integer.parseInt(args[1]));
+        }
+
+        final SpectatorGrid grid = new SpectatorGrid(geometry, boards, (int) Math.ceil(Math.sqrt(boards)));
+        java.awt.EventQueue.invokeLater(new Runnable() {
+            public void run() {
+                JFrame frame = new JFrame("Peg Board Games");
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.getContentPane().add(new JScrollPane(grid));
+                frame.pack();
+                frame.setVisible(true);
+            }
+        });
+
+        // Play every board as fast as it goes, the grid keeps its own pace
+        Thread players = new Thread(new Runnable() {
+            public void run() {
+                Random random = new Random();
+                long[] played = new long[boards];
+                int[] moves = new int[geometry.jumps()];
+                while ( true ) {
+                    for (int board=0; board<boards; board++) {
+                        long state = played[board];
+                        int count = geometry.moves(state, moves);
+                        if ( count == 0 ) {
+                            state = geometry.full() & ~(1L << random.nextInt(geometry.holes()));
+                        } else {
+                            state = geometry.apply(state, moves[random.nextInt(count)]);
+                        }
+                        played[board] = state;
+                        grid.setState(board, state);
+                    }
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+        }, "players");
+        players.setDaemon(true);
+        players.start();
+    }
+}
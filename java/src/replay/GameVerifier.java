@@ -0,0 +1,162 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package replay;
+
+import data.*;
+import game.*;
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+
+// Replays finished games in bulk and checks them.  Games are replayed on a
+// bare BitBoard state, so there are no Peg objects, listeners or boxed moves,
+// and solution membership is checked by walking the DAWG alongside.
+//
+// A batch is packed into arrays: game n started with emptyPegs[n] open and
+// made jumps[n] jumps, stored as from, to pairs in moves starting at
+// offsets[n].
+public class GameVerifier {
+    private Dawg solutions;
+
+    // Transform taking a game started at each peg onto one stored in the dictionary
+    private int[] transforms;
+
+    // Without a dictionary, any valid game down to one peg counts as a solution
+    public GameVerifier() {
+        this(null);
+    }
+    public GameVerifier(Dawg initSolutions) {
+        solutions = initSolutions;
+
+        transforms = new int[BitBoard.PEGS];
+        for (int peg=0; peg<BitBoard.PEGS && solutions != null; peg++) {
+            // Walk backwards so the first transform that works wins
+            for (int transform=Symmetry.TRANSFORMS-1; transform>=0; transform--) {
+                if ( solutions.child(Symmetry.peg(transform, peg)) != null ) {
+                    transforms[peg] = transform;
+                }
+            }
+        }
+    }
+
+    public Results verify(int[] emptyPegs, byte[] moves, int[] offsets, int[] jumps) {
+        Results results = new Results(emptyPegs.length);
+
+        long start = System.nanoTime();
+        for (int game=0; game<emptyPegs.length; game++) {
+            verify(game, emptyPegs[game], moves, offsets[game], jumps[game], results);
+        }
+        results.nanos(System.nanoTime() - start);
+
+        return results;
+    }
+
+    private void verify(int game, int emptyPeg, byte[] moves, int offset, int jumps, Results results) {
+        if ( emptyPeg < 0 || emptyPeg >= BitBoard.PEGS ) {
+            results.set(game, false, BitBoard.PEGS, false);
+            return;
+        }
+
+        int state = BitBoard.FULL & ~(1 << emptyPeg);
+        int transform = transforms[emptyPeg];
+        Dawg node = solutions == null ? null : solutions.child(Symmetry.peg(transform, emptyPeg));
+
+        for (int move=0; move<jumps; move++) {
+            int from = moves[offset + move * 2];
+            int to = moves[offset + move * 2 + 1];
+
+            int jump = BitBoard.jumpNumber(from, to);
+            if ( jump < 0 || ! BitBoard.canJump(state, jump) ) {
+                results.set(game, false, Integer.bitCount(state), false);
+                return;
+            }
+            state = BitBoard.apply(state, jump);
+
+            if ( node != null ) { node = node.child(Symmetry.peg(transform, from)); }
+            if ( node != null ) { node = node.child(Symmetry.peg(transform, to)); }
+        }
+
+        int pegs = Integer.bitCount(state);
+        boolean valid = ! BitBoard.hasMovesLeft(state);
+        boolean solution;
+        if ( solutions == null ) {
+            solution = valid && pegs == 1;
+        } else {
+            solution = valid && node != null && node.isTerminal();
+        }
+        results.set(game, valid, pegs, solution);
+    }
+
+    // Verify a file of games and report the throughput: GameVerifier <games file>
+    //
+    // Each game is a byte for the empty peg, a byte for the number of jumps,
+    // then a from and a to byte per jump.
+    public static void main(String args[]) {
+        if ( args.length != 1 ) {
+            System.err.println("Usage: replay.GameVerifier <games file>");
+            System.exit(1);
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])));
+            ByteArrayOutputStream moves = new ByteArrayOutputStream();
+            int[] emptyPegs = new int[1024];
+            int[] offsets = new int[1024];
+            int[] jumps = new int[1024];
+            int games = 0;
+            try {
+                int emptyPeg;
+                while ( (emptyPeg = in.read()) >= 0 ) {
+                    if ( games == emptyPegs.length ) {
+                        emptyPegs = Arrays.copyOf(emptyPegs, games * 2);
+                        offsets = Arrays.copyOf(offsets, games * 2);
+                        jumps = Arrays.copyOf(jumps, games * 2);
+                    }
+                    emptyPegs[games] = emptyPeg;
+                    jumps[games] = in.readUnsignedByte();
+                    offsets[games] = moves.size();
+
+                    byte[] game = new byte[jumps[games] * 2];
+                    in.readFully(game);
+                    moves.write(game);
+                    games++;
+                }
+            } finally {
+                in.close();
+            }
+
+            Dawg solutions = new Dawg(GameVerifier.class.getResourceAsStream("/data/solutions.dawg"));
+            Results results = new GameVerifier(solutions).verify(Arrays.copyOf(emptyPegs, games),
+                    moves.toByteArray(), offsets, jumps);
+
+            int valid = 0;
+            int solved = 0;
+            for (int game=0; game<games; game++) {
+                if ( results.valid(game) ) { valid++; }
+                if ( results.solution(game) ) { solved++; }
+            }
+            System.out.println(games + " games, " + valid + " valid, " + solved + " solutions, "
+                    + Math.round(results.gamesPerSecond()) + " games/s");
+        } catch (IOException ex) {
+            Logger.getLogger(GameVerifier.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package replay;
+
+// Outcome of a batch of replayed games, one array entry per game
+public class Results {
+    private boolean[] valid;
+    private byte[] pegsLeft;
+    private boolean[] solution;
+    private long nanos;
+
+    protected Results(int games) {
+        valid = new boolean[games];
+        pegsLeft = new byte[games];
+        solution = new boolean[games];
+        nanos = 0;
+    }
+
+    public int games() { return valid.length; }
+
+    // Every jump was legal and the game ended with no moves left
+    public boolean valid(int game) { return valid[game]; }
+
+    // Pegs on the board after the last legal jump
+    public int pegsLeft(int game) { return pegsLeft[game]; }
+
+    // The moves are one of the known solutions
+    public boolean solution(int game) { return solution[game]; }
+
+    // Time spent replaying the batch
+    public long nanos() { return nanos; }
+    public double gamesPerSecond() {
+        if ( nanos == 0 ) { return 0; }
+        return valid.length * 1e9 / nanos;
+    }
+
+    protected void set(int game, boolean isValid, int pegs, boolean isSolution) {
+        valid[game] = isValid;
+        pegsLeft[game] = (byte) pegs;
+        solution[game] = isSolution;
+    }
+    protected void nanos(long elapsed) { nanos = elapsed; }
+}
@@ -0,0 +1,76 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import java.util.*;
+
+// One suggested jump and how good it is.  Pegs are in whatever numbering the
+// position was given in.
+public class Hint {
+    // Best first: most solutions, then best odds, then fewest pegs
+    public static final Comparator<Hint> BY_SOLUTIONS = new Comparator<Hint>() {
+        public int compare(Hint hint1, Hint hint2) {
+            if ( hint1.solutions != hint2.solutions ) { return hint1.solutions > hint2.solutions ? -1 : 1; }
+            if ( hint1.probability != hint2.probability ) { return hint1.probability > hint2.probability ? -1 : 1; }
+            return hint1.minPegs - hint2.minPegs;
+        }
+    };
+
+    // Best first: best odds, then most solutions, then fewest pegs
+    public static final Comparator<Hint> BY_PROBABILITY = new Comparator<Hint>() {
+        public int compare(Hint hint1, Hint hint2) {
+            if ( hint1.probability != hint2.probability ) { return hint1.probability > hint2.probability ? -1 : 1; }
+            if ( hint1.solutions != hint2.solutions ) { return hint1.solutions > hint2.solutions ? -1 : 1; }
+            return hint1.minPegs - hint2.minPegs;
+        }
+    };
+
+    private int from;
+    private int to;
+    private long solutions;
+    private double probability;
+    private int minPegs;
+
+    public Hint(int initFrom, int initTo, long initSolutions, double initProbability, int initMinPegs) {
+        from = initFrom;
+        to = initTo;
+        solutions = initSolutions;
+        probability = initProbability;
+        minPegs = initMinPegs;
+    }
+
+    public int from() { return from; }
+    public int to() { return to; }
+
+    // Ways to finish with one peg after this jump
+    public long solutions() { return solutions; }
+
+    // Chance of finishing with one peg after this jump if every later jump
+    // is picked at random, -1 when not known
+    public double probability() { return probability; }
+
+    // Fewest pegs that can be left after this jump
+    public int minPegs() { return minPegs; }
+
+    @Override
+    public String toString() {
+        return from + "-" + to + " (" + solutions + " solutions)";
+    }
+}
@@ -0,0 +1,123 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import data.*;
+import game.*;
+import java.util.*;
+
+// Ranked jump suggestions for the standard board.
+//
+// Inside the solutions dictionary the counts are already cached on each node,
+// so ranking the jumps below a node is one pass over its children.  Any other
+// position, including one the player has taken off every solution, is ranked
+// from tables over all 2^15 states: the TranspositionTable's solution counts,
+// the odds of winning with random jumps, and the fewest pegs that can still be
+// left.  The tables are filled in order of pegs left, like the
+// TranspositionTable, so they take one pass.
+public class Hints {
+    private TranspositionTable table;
+    private float[] probabilities;
+    private byte[] minPegs;
+
+    public Hints() {
+        this(new TranspositionTable());
+    }
+    public Hints(TranspositionTable initTable) {
+        table = initTable;
+        probabilities = new float[1 << BitBoard.PEGS];
+        minPegs = new byte[1 << BitBoard.PEGS];
+
+        int[] list = new int[BitBoard.JUMPS];
+        for (int pegs=1; pegs<=BitBoard.PEGS; pegs++) {
+            for (int state=0; state<minPegs.length; state++) {
+                if ( Integer.bitCount(state) != pegs ) { continue; }
+
+                int count = BitBoard.moves(state, list);
+                if ( count == 0 ) {
+                    probabilities[state] = pegs == 1 ? 1 : 0;
+                    minPegs[state] = (byte) pegs;
+                    continue;
+                }
+
+                float probability = 0;
+                int fewest = pegs;
+                for (int move=0; move<count; move++) {
+                    int next = BitBoard.apply(state, list[move]);
+                    probability += probabilities[next];
+                    fewest = Math.min(fewest, minPegs[next]);
+                }
+                probabilities[state] = probability / count;
+                minPegs[state] = (byte) fewest;
+            }
+        }
+    }
+
+    public TranspositionTable table() { return table; }
+
+    public double probability(int state) { return probabilities[state & BitBoard.FULL]; }
+    public int minPegs(int state) { return minPegs[state & BitBoard.FULL]; }
+
+    // Up to k jumps from state, best first by order
+    public Hint[] best(int state, int k, Comparator<Hint> order) {
+        int[] list = new int[BitBoard.JUMPS];
+        int count = BitBoard.moves(state, list);
+
+        Hint[] hints = new Hint[count];
+        for (int move=0; move<count; move++) {
+            int next = BitBoard.apply(state, list[move]);
+            hints[move] = new Hint(BitBoard.from(list[move]), BitBoard.to(list[move]),
+                    table.solutions(next), probabilities[next], minPegs[next]);
+        }
+        return top(hints, count, k, order);
+    }
+    public Hint[] best(int state, int k) {
+        return best(state, k, Hint.BY_SOLUTIONS);
+    }
+
+    // Up to k jumps below a dictionary node, by most solutions.  Every jump
+    // in the dictionary can still win, the odds are not known.
+    public static Hint[] best(Dawg node, int k) {
+        int count = 0;
+        Hint[] hints = new Hint[BitBoard.JUMPS];
+        for (Dawg from=node.child(); from!=null; from=from.sibling()) {
+            for (Dawg to=from.child(); to!=null; to=to.sibling()) {
+                hints[count++] = new Hint(from.value(), to.value(), to.solutions(), -1, 1);
+            }
+        }
+        return top(hints, count, k, Hint.BY_SOLUTIONS);
+    }
+
+    public static Hint[] best(IndexedDawg dawg, int node, int k) {
+        int count = 0;
+        Hint[] hints = new Hint[BitBoard.JUMPS];
+        for (int from=dawg.child(node); from!=IndexedDawg.NONE; from=dawg.sibling(from)) {
+            for (int to=dawg.child(from); to!=IndexedDawg.NONE; to=dawg.sibling(to)) {
+                hints[count++] = new Hint(dawg.value(from), dawg.value(to), dawg.solutions(to), -1, 1);
+            }
+        }
+        return top(hints, count, k, Hint.BY_SOLUTIONS);
+    }
+
+    private static Hint[] top(Hint[] hints, int count, int k, Comparator<Hint> order) {
+        Arrays.sort(hints, 0, count, order);
+        return Arrays.copyOf(hints, Math.min(count, k));
+    }
+}
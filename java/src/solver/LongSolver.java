@@ -0,0 +1,216 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import game.*;
+
+// Solver for boards of any shape.  Positions are keyed by their canonical
+// state under the symmetries that keep the finish hole in place, so a
+// position and its images share an entry, and any position Pruning rules out
+// is cut before it is searched.
+//
+// solve() finds one way down to a single peg, remembering positions that
+// cannot get there.  Up to DENSE_HOLES holes that is one bit per state, which
+// is exact and lets a board with no solution be searched to the end; past
+// that it goes in a bounded LongTable, where losing an entry only costs time.
+//
+// count() adds up every way using a bounded table, which is only practical
+// on the smaller boards; counts past Long.MAX_VALUE stick there.
+public class LongSolver {
+    public static final int TABLE_BITS = 22;
+    public static final int DENSE_HOLES = 28;
+
+    // Finish hole for a game won with the last peg anywhere
+    public static final int ANYWHERE = -1;
+
+    private Geometry geometry;
+    private int finish;
+    private Pruning pruning;
+    private long[] deadBits;        // positions that cannot be won, by state
+    private LongTable dead;         // the same, when there are too many states
+    private LongTable counts;       // solutions from each position
+    private int[][] moveLists;      // legal jumps, one list per depth
+
+    public LongSolver(Geometry initGeometry) {
+        this(initGeometry, ANYWHERE);
+    }
+    public LongSolver(Geometry initGeometry, int initFinish) {
+        this(initGeometry, initFinish, TABLE_BITS);
+    }
+    public LongSolver(Geometry initGeometry, int initFinish, int tableBits) {
+        geometry = initGeometry;
+        finish = initFinish;
+        pruning = new Pruning(geometry, finish);
+
+        if ( geometry.holes() <= DENSE_HOLES ) {
+            deadBits = new long[(int) ((1L << geometry.holes()) >>> 6) + 1];
+        } else {
+            dead = new LongTable(tableBits);
+        }
+        counts = new LongTable(tableBits);
+        moveLists = new int[geometry.holes()][geometry.jumps()];
+    }
+
+    public Geometry geometry() { return geometry; }
+    public int finish() { return finish; }
+    public Pruning pruning() { return pruning; }
+
+    // Starting state with emptyPeg open
+    public long start(int emptyPeg) {
+        return geometry.full() & ~(1L << emptyPeg);
+    }
+
+    // Is state a single peg in the finish hole
+    private boolean isWon(long state) {
+        if ( finish == ANYWHERE ) { return Long.bitCount(state) == 1; }
+
+        return state == 1L << finish;
+    }
+
+    // Find one way from state down to a single peg.  The jump numbers are
+    // put in jumps, returns how many or -1 when there is no solution.
+    public int solve(long state, int[] jumps) {
+        if ( state == 0 ) { return -1; }
+
+        return search(state, jumps, 0) ? Long.bitCount(state) - 1 : -1;
+    }
+    private boolean search(long state, int[] jumps, int depth) {
+        if ( Long.bitCount(state) == 1 ) { return isWon(state); }
+        if ( ! pruning.canWin(state) ) { return false; }
+
+        long key = pruning.key(state);
+        if ( isDead(key) ) { return false; }
+
+        int[] list = moveLists[depth];
+        int count = geometry.moves(state, list);
+        for (int move=0; move<count; move++) {
+            jumps[depth] = list[move];
+            if ( search(geometry.apply(state, list[move]), jumps, depth + 1) ) { return true; }
+        }
+
+        markDead(key);
+        return false;
+    }
+
+    private boolean isDead(long key) {
+        if ( deadBits != null ) {
+            return (deadBits[(int) (key >>> 6)] & (1L << key)) != 0;
+        }
+        return dead.get(key, 0) != 0;
+    }
+    private void markDead(long key) {
+        if ( deadBits != null ) {
+            deadBits[(int) (key >>> 6)] |= 1L << key;
+        } else {
+            dead.put(key, 1);
+        }
+    }
+
+    public boolean isSolvable(long state) {
+        return solve(state, new int[geometry.holes()]) >= 0;
+    }
+
+    // Number of ways to finish with one peg left from state
+    public long count(long state) {
+        if ( state == 0 ) { return 0; }
+
+        return count(state, 0);
+    }
+    private long count(long state, int depth) {
+        if ( Long.bitCount(state) == 1 ) { return isWon(state) ? 1 : 0; }
+        if ( ! pruning.canWin(state) ) { return 0; }
+
+        long key = pruning.key(state);
+        long total = counts.get(key, -1);
+        if ( total >= 0 ) { return total; }
+
+        total = 0;
+        int[] list = moveLists[depth];
+        int moves = geometry.moves(state, list);
+        for (int move=0; move<moves; move++) {
+            long next = count(geometry.apply(state, list[move]), depth + 1);
+            total = next > Long.MAX_VALUE - total ? Long.MAX_VALUE : total + next;
+        }
+
+        counts.put(key, total);
+        return total;
+    }
+
+    // Solve each starting hole: LongSolver [-c] <rows | english | european> [empty peg ...]
+    //
+    // Triangles are won with the last peg anywhere.  The cross boards start
+    // and finish in the center unless other empty pegs are given, then the
+    // last peg may be anywhere.  Without empty pegs, a triangle solves one
+    // hole from each class of symmetric starts.  -c also counts the solutions.
+    public static void main(String args[]) {
+        boolean counting = args.length > 0 && args[0].equals("-c");
+        int first = counting ? 1 : 0;
+        if ( args.length <= first ) {
+            System.err.println("Usage: solver.LongSolver [-c] <rows | english | european> [empty peg ...]");
+            System.exit(1);
+        }
+
+        Geometry geometry;
+        if ( args[first].equals("english") ) {
+            geometry = Cross.english();
+        } else if ( args[first].equals("european") ) {
+            geometry = Cross.european();
+        } else {
+            geometry = new Triangle(Integer.parseInt(args[first]));
+        }
+
+        int finish = ANYWHERE;
+        int[] emptyPegs = new int[geometry.holes()];
+        int starts = 0;
+        if ( args.length > first + 1 ) {
+            for (int index=first+1; index<args.length; index++) {
+                emptyPegs[starts++] = Integer.parseInt(args[index]);
+            }
+        } else if ( geometry instanceof Cross ) {
+            finish = ((Cross) geometry).center();
+            emptyPegs[starts++] = finish;
+        } else {
+            for (int peg=0; peg<geometry.holes(); peg++) {
+                if ( geometry.isCanonical(peg) ) { emptyPegs[starts++] = peg; }
+            }
+        }
+
+        LongSolver solver = new LongSolver(geometry, finish);
+        int[] jumps = new int[geometry.holes()];
+        for (int index=0; index<starts; index++) {
+            long start = System.currentTimeMillis();
+            long state = solver.start(emptyPegs[index]);
+            int length = solver.solve(state, jumps);
+
+            StringBuilder line = new StringBuilder("Peg " + emptyPegs[index] + ":");
+            if ( length < 0 ) {
+                line.append(" no solution");
+            }
+            for (int jump=0; jump<length; jump++) {
+                line.append(" " + geometry.from(jumps[jump]) + "-" + geometry.to(jumps[jump]));
+            }
+            if ( counting ) {
+                line.append(", " + solver.count(state) + " solutions");
+            }
+            line.append(", " + (System.currentTimeMillis() - start) + "ms");
+            System.out.println(line);
+        }
+    }
+}
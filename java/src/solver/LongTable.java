@@ -0,0 +1,93 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+// Fixed size hash table from long keys to long values for the solvers of the
+// bigger boards, where a table indexed by state would not fit.  A key is
+// looked for in a few slots after its home slot; when they are all taken a
+// new entry simply replaces the one at home, so the table never grows and
+// anything may be forgotten.  Callers have to treat it as a cache.
+//
+// Key 0 marks an empty slot and cannot be stored, which suits board states
+// since there is always at least one peg left.
+public class LongTable {
+    private static final int PROBES = 4;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    // Room for 2^bits entries
+    public LongTable(int bits) {
+        if ( bits < 1 || bits > 30 ) {
+            throw new IllegalArgumentException("Table bits must be 1 to 30: " + bits);
+        }
+        keys = new long[1 << bits];
+        values = new long[1 << bits];
+        mask = keys.length - 1;
+        shift = 64 - bits;
+    }
+
+    public int size() { return size; }
+    public int capacity() { return keys.length; }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    // Value stored for key, or missing when it is not in the table
+    public long get(long key, long missing) {
+        int slot = home(key);
+        for (int probe=0; probe<PROBES; probe++) {
+            long found = keys[(slot + probe) & mask];
+            if ( found == key ) { return values[(slot + probe) & mask]; }
+            if ( found == 0 ) { return missing; }
+        }
+        return missing;
+    }
+
+    public void put(long key, long value) {
+        int slot = home(key);
+        for (int probe=0; probe<PROBES; probe++) {
+            int index = (slot + probe) & mask;
+            if ( keys[index] == key ) {
+                values[index] = value;
+                return;
+            }
+            if ( keys[index] == 0 ) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                return;
+            }
+        }
+
+        // Every probe was taken, replace the entry at home
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,150 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import data.*;
+import game.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Same output as Solver, but the starting pegs and the first moves under them
+// are solved as separate fork/join tasks.  Every task owns its Solver and
+// DawgWriter, nothing is shared while solving, and the parts are copied into
+// one writer as the tasks are joined.  The transposition table is built once
+// and only read by the tasks.
+public class ParallelSolver {
+    private ForkJoinPool pool;
+    private int splitDepth;
+    private DawgWriter writer;
+    private TranspositionTable table;
+
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool(), 1);
+    }
+
+    // splitDepth is how many jumps deep to keep forking before a task solves
+    // the rest of its subtree on its own
+    public ParallelSolver(ForkJoinPool initPool, int initSplitDepth) {
+        pool = initPool;
+        splitDepth = initSplitDepth;
+        writer = new DawgWriter();
+        table = new TranspositionTable();
+    }
+
+    public DawgWriter writer() { return writer; }
+
+    // Build the DAWG root holding the solutions for each of the empty pegs given
+    public int solve(int[] emptyPegs) {
+        List<MoveListTask> tasks = new ArrayList<MoveListTask>();
+        for (int index=0; index<emptyPegs.length; index++) {
+            tasks.add(new MoveListTask(BitBoard.FULL & ~(1 << emptyPegs[index]), 0, splitDepth, table));
+        }
+        for (MoveListTask task : tasks) {
+            pool.execute(task);
+        }
+
+        int sibling = 0;
+        for (int index=emptyPegs.length-1; index>=0; index--) {
+            MoveListTask task = tasks.get(index);
+            task.join();
+
+            int child = writer.copy(task.writer, task.list);
+            if ( child != 0 ) {
+                sibling = writer.node(emptyPegs[index], false, child, sibling);
+            }
+        }
+
+        return writer.node(0, false, sibling, 0);
+    }
+
+    // Solves the move list for one board state into its own writer
+    private static class MoveListTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private int state;
+        private int depth;
+        private int splitDepth;
+        private TranspositionTable table;
+
+        private DawgWriter writer;
+        private int list;
+
+        MoveListTask(int initState, int initDepth, int initSplitDepth, TranspositionTable initTable) {
+            state = initState;
+            depth = initDepth;
+            splitDepth = initSplitDepth;
+            table = initTable;
+        }
+
+        @Override
+        protected void compute() {
+            if ( depth >= splitDepth ) {
+                Solver solver = new Solver(new DawgWriter(), table);
+                list = solver.solve(state);
+                writer = solver.writer();
+                return;
+            }
+
+            // Fork one task per legal jump, in DAWG sibling order
+            MoveListTask[] subTasks = new MoveListTask[Solver.sortedJumps.length];
+            List<MoveListTask> forked = new ArrayList<MoveListTask>();
+            for (int index=0; index<Solver.sortedJumps.length; index++) {
+                int jump = Solver.sortedJumps[index];
+                if ( ! BitBoard.canJump(state, jump) ) { continue; }
+
+                int nextState = BitBoard.apply(state, jump);
+                if ( Integer.bitCount(nextState) > 1 && table.isSolvable(nextState) ) {
+                    subTasks[index] = new MoveListTask(nextState, depth + 1, splitDepth, table);
+                    forked.add(subTasks[index]);
+                }
+            }
+            invokeAll(forked);
+
+            // Same back to front list building as Solver.solve, copying each part
+            writer = new DawgWriter();
+            int fromSibling = 0;
+            int index = Solver.sortedJumps.length - 1;
+            while ( index >= 0 ) {
+                int from = BitBoard.from(Solver.sortedJumps[index]);
+
+                int toSibling = 0;
+                while ( index >= 0 && BitBoard.from(Solver.sortedJumps[index]) == from ) {
+                    int jump = Solver.sortedJumps[index];
+                    MoveListTask subTask = subTasks[index];
+                    index--;
+                    if ( ! BitBoard.canJump(state, jump) ) { continue; }
+
+                    int nextState = BitBoard.apply(state, jump);
+                    if ( Integer.bitCount(nextState) == 1 ) {
+                        toSibling = writer.node(BitBoard.to(jump), true, 0, toSibling);
+                    } else if ( subTask != null ) {
+                        int child = writer.copy(subTask.writer, subTask.list);
+                        toSibling = writer.node(BitBoard.to(jump), false, child, toSibling);
+                    }
+                }
+
+                if ( toSibling != 0 ) {
+                    fromSibling = writer.node(from, false, toSibling, fromSibling);
+                }
+            }
+            list = fromSibling;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import game.*;
+import java.util.*;
+
+// Tests that cut positions which can no longer be won, so the solvers never
+// walk their subtrees.  Everything is worked out once from the Geometry and
+// the finish hole:
+//
+// Position classes.  A jump flips the from, over and to holes, so counting
+// pegs mod 2 over any set of holes that meets every jump an even number of
+// times never changes.  Those sets are found by elimination over GF(2), and a
+// position whose counts differ from every winning finish is dead.
+//
+// A pagoda function.  Weights where from plus over is never less than to can
+// only fall as pegs jump, so a position weighing less than the finish is
+// dead.  The weights start as Fibonacci numbers falling with distance from
+// the finish and are relaxed down until every jump satisfies them.  With the
+// finish anywhere no single weight bounds it, so there is none.
+//
+// Backward reachability.  Every position with a few pegs that can still be
+// won is found by jumping backwards from the finishes, as long as the sets
+// stay under REACH_LIMIT.  A position that small is then decided exactly.
+//
+// States are compared by key(), the smallest image under the symmetries that
+// keep the finish in place.
+public class Pruning {
+    public static final int REACH_LIMIT = 1 << 21;
+
+    // Position classes past this many invariants are not tracked
+    private static final int MAX_INVARIANTS = 16;
+
+    private Geometry geometry;
+    private int finish;
+    private int[] transforms;       // symmetries that keep the finish in place
+
+    private long[] invariants;      // holes whose peg count mod 2 never changes
+    private boolean[] winningClasses;   // [class] -> has a winning finish
+
+    private int[][] pagodaChunks;   // [byte][bits] -> weight, null for none
+    private int pagodaFinish;       // weight of the finish
+
+    private long[][] reach;         // [pegs] -> sorted keys that can be won
+    private int reachPegs;
+
+    public Pruning(Geometry initGeometry, int initFinish) {
+        this(initGeometry, initFinish, REACH_LIMIT);
+    }
+    public Pruning(Geometry initGeometry, int initFinish, int reachLimit) {
+        geometry = initGeometry;
+        finish = initFinish;
+
+        int count = 0;
+        transforms = new int[geometry.transforms()];
+        for (int transform=1; transform<geometry.transforms(); transform++) {
+            if ( finish == LongSolver.ANYWHERE || geometry.symmetry(transform, finish) == finish ) {
+                transforms[count++] = transform;
+            }
+        }
+        transforms = Arrays.copyOf(transforms, count);
+
+        initClasses();
+        if ( finish != LongSolver.ANYWHERE ) { initPagoda(); }
+        initReach(reachLimit);
+    }
+
+    // The smallest state among state and its images that keep the finish
+    public long key(long state) {
+        long best = state;
+        for (int index=0; index<transforms.length; index++) {
+            long image = geometry.symmetry(transforms[index], state);
+            if ( Long.compareUnsigned(image, best) < 0 ) { best = image; }
+        }
+        return best;
+    }
+
+    // False when state certainly cannot be won
+    public boolean canWin(long state) {
+        if ( ! winningClasses[positionClass(state)] ) { return false; }
+        if ( pagodaChunks != null && pagoda(state) < pagodaFinish ) { return false; }
+
+        int pegs = Long.bitCount(state);
+        if ( pegs <= reachPegs ) {
+            return Arrays.binarySearch(reach[pegs], key(state)) >= 0;
+        }
+        return true;
+    }
+
+    // Position classes
+
+    public int invariants() { return invariants.length; }
+
+    // Peg count parities of state, one bit per invariant
+    public int positionClass(long state) {
+        int positionClass = 0;
+        for (int index=0; index<invariants.length; index++) {
+            positionClass |= (Long.bitCount(state & invariants[index]) & 1) << index;
+        }
+        return positionClass;
+    }
+
+    private void initClasses() {
+        int holes = geometry.holes();
+
+        // Row reduce the jump masks, pivots[column] is the row with its pivot there
+        long[] rows = new long[geometry.jumps()];
+        for (int jump=0; jump<rows.length; jump++) {
+            rows[jump] = geometry.mask(jump);
+        }
+        int[] pivots = new int[holes];
+        Arrays.fill(pivots, -1);
+        int rank = 0;
+        for (int column=0; column<holes && rank<rows.length; column++) {
+            long bit = 1L << column;
+            int found = -1;
+            for (int row=rank; row<rows.length; row++) {
+                if ( (rows[row] & bit) != 0 ) { found = row; break; }
+            }
+            if ( found < 0 ) { continue; }
+
+            long swap = rows[found];
+            rows[found] = rows[rank];
+            rows[rank] = swap;
+            for (int row=0; row<rows.length; row++) {
+                if ( row != rank && (rows[row] & bit) != 0 ) { rows[row] ^= rows[rank]; }
+            }
+            pivots[column] = rank++;
+        }
+
+        // Each free column gives one set meeting every jump evenly
+        long[] found = new long[holes];
+        int count = 0;
+        for (int free=0; free<holes && count<MAX_INVARIANTS; free++) {
+            if ( pivots[free] >= 0 ) { continue; }
+
+            long invariant = 1L << free;
+            for (int column=0; column<holes; column++) {
+                if ( pivots[column] >= 0 && (rows[pivots[column]] & (1L << free)) != 0 ) {
+                    invariant |= 1L << column;
+                }
+            }
+            found[count++] = invariant;
+        }
+        invariants = Arrays.copyOf(found, count);
+
+        winningClasses = new boolean[1 << count];
+        for (int hole=0; hole<holes; hole++) {
+            if ( finish == LongSolver.ANYWHERE || hole == finish ) {
+                winningClasses[positionClass(1L << hole)] = true;
+            }
+        }
+    }
+
+    // Pagoda function
+
+    // Weight of the pegs in state, 0 when there is no pagoda
+    public int pagoda(long state) {
+        if ( pagodaChunks == null ) { return 0; }
+
+        int weight = 0;
+        for (int chunk=0; chunk<pagodaChunks.length; chunk++) {
+            weight += pagodaChunks[chunk][(int) (state >>> (chunk * 8)) & 0xFF];
+        }
+        return weight;
+    }
+
+    private void initPagoda() {
+        int holes = geometry.holes();
+
+        // Distance from the finish, stepping to neighbors
+        int[] distances = new int[holes];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[holes];
+        int head = 0;
+        int tail = 0;
+        distances[finish] = 0;
+        queue[tail++] = finish;
+        while ( head < tail ) {
+            int hole = queue[head++];
+            for (int direction=0; direction<geometry.directions(); direction++) {
+                int next = geometry.neighbor(hole, direction);
+                if ( next >= 0 && distances[next] < 0 ) {
+                    distances[next] = distances[hole] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        int farthest = 0;
+        for (int hole=0; hole<holes; hole++) {
+            farthest = Math.max(farthest, distances[hole]);
+        }
+
+        // Two steps toward the finish along a line add up exactly
+        int[] fibonacci = new int[farthest + 2];
+        fibonacci[0] = 1;
+        fibonacci[1] = 1;
+        for (int index=2; index<fibonacci.length; index++) {
+            fibonacci[index] = fibonacci[index-1] + fibonacci[index-2];
+        }
+        int[] weights = new int[holes];
+        for (int hole=0; hole<holes; hole++) {
+            weights[hole] = distances[hole] < 0 ? 0 : fibonacci[farthest - distances[hole]];
+        }
+
+        // Lower any weight a jump can reach more than it costs, until none can
+        boolean relaxed = true;
+        while ( relaxed ) {
+            relaxed = false;
+            for (int jump=0; jump<geometry.jumps(); jump++) {
+                int bound = weights[geometry.from(jump)] + weights[geometry.over(jump)];
+                if ( weights[geometry.to(jump)] > bound ) {
+                    weights[geometry.to(jump)] = bound;
+                    relaxed = true;
+                }
+            }
+        }
+
+        pagodaChunks = new int[(holes + 7) / 8][256];
+        for (int chunk=0; chunk<pagodaChunks.length; chunk++) {
+            for (int bits=0; bits<256; bits++) {
+                for (int bit=0; bit<8 && chunk * 8 + bit < holes; bit++) {
+                    if ( (bits & (1 << bit)) != 0 ) { pagodaChunks[chunk][bits] += weights[chunk * 8 + bit]; }
+                }
+            }
+        }
+        pagodaFinish = weights[finish];
+    }
+
+    // Backward reachability
+
+    // Positions with up to this many pegs are decided exactly
+    public int reachPegs() { return reachPegs; }
+
+    private void initReach(int reachLimit) {
+        reach = new long[geometry.holes() + 1][];
+
+        // One peg: the winning finishes
+        long[] level = new long[geometry.holes()];
+        int count = 0;
+        for (int hole=0; hole<geometry.holes(); hole++) {
+            if ( finish == LongSolver.ANYWHERE || hole == finish ) {
+                level[count++] = key(1L << hole);
+            }
+        }
+        level = sortedUnique(level, count);
+        long total = level.length;
+        reach[1] = level;
+        reachPegs = 1;
+
+        // Undo every jump that could have led to each position
+        while ( reachPegs < geometry.holes() - 1 ) {
+            long[] next = new long[Math.max(16, level.length * 4)];
+            count = 0;
+            for (int index=0; index<level.length && count<=reachLimit; index++) {
+                long state = level[index];
+                for (int jump=0; jump<geometry.jumps(); jump++) {
+                    if ( (state & geometry.mask(jump)) != 1L << geometry.to(jump) ) { continue; }
+
+                    long previous = key(geometry.apply(state, jump));
+                    if ( count == next.length ) { next = Arrays.copyOf(next, count * 2); }
+                    next[count++] = previous;
+                }
+            }
+
+            long[] sorted = sortedUnique(next, count);
+            if ( count > reachLimit || total + sorted.length > reachLimit ) { break; }
+
+            level = sorted;
+            total += level.length;
+            reach[++reachPegs] = level;
+        }
+    }
+    private static long[] sortedUnique(long[] values, int count) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+
+        int unique = 0;
+        for (int index=0; index<sorted.length; index++) {
+            if ( unique == 0 || sorted[index] != sorted[unique-1] ) { sorted[unique++] = sorted[index]; }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+}
@@ -0,0 +1,355 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import data.*;
+import game.*;
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Checks the solvers, the dictionary formats and the builder against values
+// found by brute force, so a change that breaks one shows up without playing
+// a game.  Every check prints a line; the exit status is 1 if any failed.
+//
+//     java -cp build/classes solver.SelfCheck
+public class SelfCheck {
+    // Solutions from each canonical start of the standard board
+    private static final int[] STARTS = {0, 1, 3, 4};
+    private static final long[] START_SOLUTIONS = {29760, 14880, 85258, 1550};
+    private static final long ALL_SOLUTIONS = 438984;    // from all 15 starts
+
+    // Solutions on the 6 row triangle
+    private static final int[] LONG_STARTS = {0, 4};
+    private static final long[] LONG_SOLUTIONS = {43419942138L, 29235690234L};
+
+    // The dictionary as it was shipped, empty pegs 0-4
+    private static final int[] SHIPPED_STARTS = {0, 1, 2, 3, 4};
+    private static final long SHIPPED_WORDS = 146328;
+
+    private int failures = 0;
+
+    public static void main(String args[]) throws IOException {
+        SelfCheck check = new SelfCheck();
+        check.solver();
+        check.parallelSolver();
+        check.transpositionTable();
+        check.dawgBuilder();
+        check.longSolver();
+        check.crossBoards();
+        check.pruning();
+        check.hints();
+        check.solvability();
+        check.formats();
+
+        if ( check.failures > 0 ) {
+            System.out.println(check.failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    // Solver, one start at a time and all together
+    private void solver() {
+        long total = 0;
+        for (int index=0; index<STARTS.length; index++) {
+            Solver solver = new Solver();
+            int root = solver.solve(new int[] {STARTS[index]});
+            check("Solver solutions from peg " + STARTS[index], START_SOLUTIONS[index], solver.writer().solutions(root));
+            total += START_SOLUTIONS[index];
+        }
+
+        Solver solver = new Solver();
+        int root = solver.solve(STARTS);
+        check("Solver solutions from the canonical starts", total, solver.writer().solutions(root));
+    }
+
+    // ParallelSolver builds the same dictionary as Solver, however it splits
+    private void parallelSolver() {
+        Solver solver = new Solver();
+        int root = solver.solve(STARTS);
+
+        for (int splitDepth=0; splitDepth<=2; splitDepth++) {
+            ParallelSolver parallel = new ParallelSolver(ForkJoinPool.commonPool(), splitDepth);
+            int parallelRoot = parallel.solve(STARTS);
+            check("ParallelSolver solutions, split depth " + splitDepth,
+                    solver.writer().solutions(root), parallel.writer().solutions(parallelRoot));
+            check("ParallelSolver nodes, split depth " + splitDepth, solver.writer().size(), parallel.writer().size());
+        }
+    }
+
+    // TranspositionTable counts, every start matching its symmetric canonical one
+    private void transpositionTable() {
+        TranspositionTable table = new TranspositionTable();
+        for (int index=0; index<STARTS.length; index++) {
+            check("TranspositionTable solutions from peg " + STARTS[index],
+                    START_SOLUTIONS[index], table.solutionsFrom(STARTS[index]));
+        }
+
+        long total = 0;
+        int mismatched = 0;
+        for (int peg=0; peg<BitBoard.PEGS; peg++) {
+            total += table.solutionsFrom(peg);
+            int canonical = BitBoard.PEGS;
+            for (int transform=0; transform<Symmetry.TRANSFORMS; transform++) {
+                canonical = Math.min(canonical, Symmetry.peg(transform, peg));
+            }
+            if ( table.solutionsFrom(peg) != table.solutionsFrom(canonical) ) { mismatched++; }
+        }
+        check("TranspositionTable solutions from every start", ALL_SOLUTIONS, total);
+        check("TranspositionTable starts unlike their canonical start", 0, mismatched);
+    }
+
+    // Rebuilding a dictionary word by word keeps every word, and the result
+    // is already minimal, so rebuilding it again changes nothing
+    private void dawgBuilder() throws IOException {
+        Solver solver = new Solver();
+        int root = solver.solve(SHIPPED_STARTS);
+        IndexedDawg solved = read(solver.writer(), root, DawgWriter.VERSION_2);
+
+        DawgBuilder builder = new DawgBuilder();
+        builder.add(solved);
+        int built = builder.finish();
+        check("DawgBuilder words", SHIPPED_WORDS, builder.writer().solutions(built));
+        check("DawgBuilder nodes against Solver", solver.writer().size(), builder.writer().size());
+
+        DawgBuilder again = new DawgBuilder();
+        again.add(read(builder.writer(), built, DawgWriter.VERSION_2));
+        int rebuilt = again.finish();
+        check("DawgBuilder words rebuilt", SHIPPED_WORDS, again.writer().solutions(rebuilt));
+        check("DawgBuilder nodes rebuilt", builder.writer().size(), again.writer().size());
+    }
+
+    // LongSolver agrees with the TranspositionTable on the standard board and
+    // pins the counts of the next size up
+    private void longSolver() {
+        LongSolver solver = new LongSolver(new Triangle(Board.ROWS));
+        for (int index=0; index<STARTS.length; index++) {
+            check("LongSolver solutions from peg " + STARTS[index],
+                    START_SOLUTIONS[index], solver.count(solver.start(STARTS[index])));
+        }
+
+        LongSolver six = new LongSolver(new Triangle(6));
+        for (int index=0; index<LONG_STARTS.length; index++) {
+            check("LongSolver 6 row solutions from peg " + LONG_STARTS[index],
+                    LONG_SOLUTIONS[index], six.count(six.start(LONG_STARTS[index])));
+        }
+    }
+
+    // The English board can be won from the center to the center in 31 jumps,
+    // the European board cannot
+    private void crossBoards() {
+        Cross english = Cross.english();
+        LongSolver solver = new LongSolver(english, english.center());
+        check("English board holes", 33, english.holes());
+        check("English board jumps center to center", 31,
+                solver.solve(solver.start(english.center()), new int[english.holes()]));
+
+        Cross european = Cross.european();
+        solver = new LongSolver(european, european.center());
+        check("European board holes", 37, european.holes());
+        check("European board jumps center to center", -1,
+                solver.solve(solver.start(european.center()), new int[european.holes()]));
+    }
+
+    // Pruning never rules out a position of the standard board that can win.
+    // The board is small enough for backward reachability to decide every
+    // position, so all 18832 that cannot win are cut too.
+    private void pruning() {
+        TranspositionTable table = new TranspositionTable();
+        Pruning pruning = new Pruning(new Triangle(Board.ROWS), LongSolver.ANYWHERE);
+        int wrong = 0;
+        int cut = 0;
+        for (int state=1; state<=BitBoard.FULL; state++) {
+            if ( pruning.canWin(state) ) { continue; }
+
+            if ( table.isSolvable(state) ) {
+                wrong++;
+            } else {
+                cut++;
+            }
+        }
+        check("Pruning cuts of winnable positions", 0, wrong);
+        check("Pruning cuts of lost positions", 18832, cut);
+    }
+
+    // Ranking from the dictionary and from the tables give the same winning
+    // jumps and counts, all the way down the best line from each start
+    private void hints() throws IOException {
+        Solver solver = new Solver();
+        CompactDawg dawg = read(solver.writer(), solver.solve(STARTS), DawgWriter.VERSION_2);
+        Hints hints = new Hints();
+
+        int positions = 0;
+        int wrong = 0;
+        for (int index=0; index<STARTS.length; index++) {
+            int state = BitBoard.FULL & ~(1 << STARTS[index]);
+            int node = dawg.child(dawg.root(), STARTS[index]);
+            while ( true ) {
+                Hint[] fromDawg = Hints.best(dawg, node, BitBoard.JUMPS);
+                Hint[] fromTables = hints.best(state, BitBoard.JUMPS);
+                if ( fromDawg.length == 0 ) { break; }
+
+                positions++;
+                if ( ! winning(fromDawg).equals(winning(fromTables)) ) { wrong++; }
+
+                Hint best = fromDawg[0];
+                state = BitBoard.apply(state, BitBoard.jumpNumber(best.from(), best.to()));
+                node = dawg.child(dawg.child(node, best.from()), best.to());
+            }
+        }
+        check("Hints positions where the dictionary and tables differ, of " + positions, 0, wrong);
+    }
+
+    // Every reachable position agrees with the full tables, and every start
+    // can be brought down to one peg
+    private void solvability() {
+        TranspositionTable table = new TranspositionTable();
+        Hints hints = new Hints(table);
+        Solvability solvability = new Solvability();
+
+        int reachable = 0;
+        int wrong = 0;
+        for (int state=1; state<=BitBoard.FULL; state++) {
+            if ( ! solvability.isReachable(state) ) { continue; }
+
+            reachable++;
+            if ( solvability.isSolvable(state) != table.isSolvable(state)
+                    || solvability.minPegs(state) != hints.minPegs(state) ) {
+                wrong++;
+            }
+        }
+        check("Solvability reachable positions", 13935, reachable);
+        check("Solvability positions unlike the tables", 0, wrong);
+
+        int unsolvable = 0;
+        for (int peg=0; peg<BitBoard.PEGS; peg++) {
+            if ( solvability.minPegs(BitBoard.FULL & ~(1 << peg)) != 1 ) { unsolvable++; }
+        }
+        check("Solvability starts that cannot reach one peg", 0, unsolvable);
+    }
+
+    // The jumps that can still win and their counts, in a fixed order
+    private static List<String> winning(Hint[] hints) {
+        List<String> jumps = new ArrayList<String>();
+        for (int index=0; index<hints.length; index++) {
+            if ( hints[index].solutions() > 0 ) {
+                jumps.add(hints[index].from() + "-" + hints[index].to() + " " + hints[index].solutions());
+            }
+        }
+        Collections.sort(jumps);
+        return jumps;
+    }
+
+    // Both versions of the file hold the same words through every reader, and
+    // a version 1 file copied into version 2 and back keeps them all
+    private void formats() throws IOException {
+        Solver solver = new Solver();
+        int root = solver.solve(SHIPPED_STARTS);
+        byte[] version1 = bytes(solver.writer(), root, DawgWriter.VERSION_1);
+        byte[] version2 = bytes(solver.writer(), root, DawgWriter.VERSION_2);
+        Set<String> words = words(new CompactDawg(new ByteArrayInputStream(version1)));
+        check("Version 1 words", SHIPPED_WORDS, words.size());
+
+        check("Version 2 CompactDawg words unlike version 1", 0,
+                unlike(words, words(new CompactDawg(new ByteArrayInputStream(version2)))));
+        check("Version 2 MappedDawg words unlike version 1", 0,
+                unlike(words, words(new MappedDawg(ByteBuffer.wrap(version2)))));
+        check("Version 2 PackedDawg words unlike version 1", 0,
+                unlike(words, words(new PackedDawg(ByteBuffer.wrap(version2)))));
+        check("Version 2 Dawg words unlike version 1", 0,
+                unlike(words, words(new Dawg(new ByteArrayInputStream(version2)))));
+        check("Version 1 MappedDawg words unlike CompactDawg", 0,
+                unlike(words, words(new MappedDawg(ByteBuffer.wrap(version1)))));
+        check("Version 1 Dawg words unlike CompactDawg", 0,
+                unlike(words, words(new Dawg(new ByteArrayInputStream(version1)))));
+
+        DawgWriter copy = new DawgWriter();
+        CompactDawg read = new CompactDawg(new ByteArrayInputStream(version1));
+        int copied = copy.copy(read, read.root());
+        CompactDawg packed = read(copy, copied, DawgWriter.VERSION_2);
+        check("Version 1 copied to version 2, words unlike the original", 0, unlike(words, words(packed)));
+
+        DawgWriter back = new DawgWriter();
+        int unpacked = back.copy(packed, packed.root());
+        check("Version 2 copied back to version 1, words unlike the original", 0,
+                unlike(words, words(read(back, unpacked, DawgWriter.VERSION_1))));
+    }
+
+    // Words in one set but not the other
+    private static int unlike(Set<String> expected, Set<String> actual) {
+        int count = 0;
+        for (String word : expected) {
+            if ( ! actual.contains(word) ) { count++; }
+        }
+        for (String word : actual) {
+            if ( ! expected.contains(word) ) { count++; }
+        }
+        return count;
+    }
+
+    // Every word in a dictionary, each letter as a char
+    private static Set<String> words(IndexedDawg dawg) {
+        Set<String> words = new HashSet<String>();
+        words(dawg, dawg.root(), new StringBuilder(), words);
+        return words;
+    }
+    private static void words(IndexedDawg dawg, int node, StringBuilder word, Set<String> words) {
+        if ( dawg.isTerminal(node) ) { words.add(word.toString()); }
+        for (int child=dawg.child(node); child!=IndexedDawg.NONE; child=dawg.sibling(child)) {
+            word.append((char) dawg.value(child));
+            words(dawg, child, word, words);
+            word.setLength(word.length() - 1);
+        }
+    }
+    private static Set<String> words(Dawg dawg) {
+        Set<String> words = new HashSet<String>();
+        words(dawg, new StringBuilder(), words);
+        return words;
+    }
+    private static void words(Dawg node, StringBuilder word, Set<String> words) {
+        if ( node.isTerminal() ) { words.add(word.toString()); }
+        for (Dawg child=node.child(); child!=null; child=child.sibling()) {
+            word.append((char) child.value());
+            words(child, word, words);
+            word.setLength(word.length() - 1);
+        }
+    }
+
+    // A written dictionary read back in
+    private static CompactDawg read(DawgWriter writer, int root, int version) throws IOException {
+        return new CompactDawg(new ByteArrayInputStream(bytes(writer, root, version)));
+    }
+    private static byte[] bytes(DawgWriter writer, int root, int version) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.write(bytes, root, version);
+        return bytes.toByteArray();
+    }
+
+    private void check(String what, long expected, long actual) {
+        if ( actual == expected ) {
+            System.out.println("ok      " + what + ": " + actual);
+        } else {
+            failures++;
+            System.out.println("FAILED  " + what + ": " + actual + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import game.*;
+
+// What can still happen from every position of the standard board that a
+// game can reach, in a few KB.  A position and its rotations and reflections
+// share one entry, kept under the canonical state from Symmetry.  Each entry
+// is one byte: the fewest pegs it can be brought down to in the low four
+// bits, and how many of its jumps keep one peg within reach in the high four
+// bits, stopping at 15.  The bytes are packed in state order, and a state
+// finds its byte by counting the reachable states below it with a bitset
+// over all 2^15 states and a running count per 64 bit word, so every lookup
+// is a few operations.
+public class Solvability {
+    private static final int MAX_JUMPS = 15;
+
+    private long[] reachable;       // bit per state
+    private char[] ranks;           // reachable states before each word
+    private byte[] entries;         // min pegs | winning jumps << 4
+
+    public Solvability() {
+        int states = 1 << BitBoard.PEGS;
+
+        // Mark everything a game can reach from a single empty peg, the
+        // states are visited in order of pegs left so jumps only mark ahead
+        reachable = new long[states / 64];
+        for (int peg=0; peg<BitBoard.PEGS; peg++) {
+            mark(BitBoard.FULL & ~(1 << peg));
+        }
+        for (int pegs=BitBoard.PEGS-1; pegs>1; pegs--) {
+            for (int state=0; state<states; state++) {
+                if ( Integer.bitCount(state) != pegs || ! isMarked(state) ) { continue; }
+
+                for (int jump=0; jump<BitBoard.JUMPS; jump++) {
+                    if ( BitBoard.canJump(state, jump) ) { mark(BitBoard.apply(state, jump)); }
+                }
+            }
+        }
+
+        ranks = new char[reachable.length];
+        int count = 0;
+        for (int word=0; word<reachable.length; word++) {
+            ranks[word] = (char) count;
+            count += Long.bitCount(reachable[word]);
+        }
+
+        // Fill in from the fewest pegs up, each jump leads to one peg less
+        entries = new byte[count];
+        for (int pegs=1; pegs<BitBoard.PEGS; pegs++) {
+            for (int state=0; state<states; state++) {
+                if ( Integer.bitCount(state) != pegs || ! isMarked(state) ) { continue; }
+
+                int minPegs = pegs;
+                int winning = 0;
+                for (int jump=0; jump<BitBoard.JUMPS; jump++) {
+                    if ( ! BitBoard.canJump(state, jump) ) { continue; }
+
+                    int next = BitBoard.apply(state, jump);
+                    minPegs = Math.min(minPegs, minPegs(next));
+                    if ( minPegs(next) == 1 ) { winning++; }
+                }
+                entries[index(state)] = (byte) (minPegs | Math.min(winning, MAX_JUMPS) << 4);
+            }
+        }
+    }
+
+    private void mark(int state) {
+        state = Symmetry.canonical(state);
+        reachable[state >>> 6] |= 1L << state;
+    }
+    private boolean isMarked(int canonical) {
+        return (reachable[canonical >>> 6] & (1L << canonical)) != 0;
+    }
+
+    // Where a marked canonical state keeps its byte
+    private int index(int canonical) {
+        return ranks[canonical >>> 6] + Long.bitCount(reachable[canonical >>> 6] & ((1L << canonical) - 1));
+    }
+
+    // Entry for state, -1 when it is not reachable
+    private int entry(int state) {
+        int canonical = Symmetry.canonical(state & BitBoard.FULL);
+        if ( ! isMarked(canonical) ) { return -1; }
+
+        return entries[index(canonical)] & 0xFF;
+    }
+
+    // Can a game started with one empty peg get to state
+    public boolean isReachable(int state) {
+        return isMarked(Symmetry.canonical(state & BitBoard.FULL));
+    }
+
+    // Fewest pegs state can be brought down to, -1 when it is not reachable
+    public int minPegs(int state) {
+        int entry = entry(state);
+        return entry < 0 ? -1 : entry & 0x0F;
+    }
+
+    // Can one peg still be reached from state
+    public boolean isSolvable(int state) {
+        return minPegs(state) == 1;
+    }
+
+    // Jumps from state that keep one peg within reach, up to 15
+    public int winningJumps(int state) {
+        int entry = entry(state);
+        return entry < 0 ? 0 : entry >>> 4;
+    }
+
+    // Reachable states kept, one for each set of symmetric ones
+    public int entries() { return entries.length; }
+
+    // Memory taken by the tables
+    public int bytes() {
+        return reachable.length * 8 + ranks.length * 2 + entries.length;
+    }
+}
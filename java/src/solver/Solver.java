@@ -0,0 +1,168 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import data.*;
+import game.*;
+import java.io.*;
+import java.util.logging.*;
+
+// Finds every solution to the board and stores them as a DAWG.  Each word is
+// the empty peg followed by the from and to peg of every jump, which is the
+// layout GuiPegboardApp walks.
+//
+// The solutions after a jump only depend on which pegs are left, so the
+// sibling list of moves is built once per board state and shared by every
+// path that reaches it.  The transposition table lets it skip any jump that
+// cannot lead to a solution before walking it.
+public class Solver {
+    private DawgWriter writer;
+    private TranspositionTable table;
+
+    // First node of the move list for each board state, -1 when not yet solved
+    private int[] moveLists;
+
+    // Jumps sorted by from peg, then to peg, matching the DAWG sibling order
+    static final int[] sortedJumps;
+
+    static {
+        sortedJumps = new int[BitBoard.JUMPS];
+        int count = 0;
+        for (int from=0; from<BitBoard.PEGS; from++) {
+            for (int to=0; to<BitBoard.PEGS; to++) {
+                int jump = BitBoard.jumpNumber(from, to);
+                if ( jump >= 0 ) { sortedJumps[count++] = jump; }
+            }
+        }
+    }
+
+    public Solver() {
+        this(new DawgWriter(), new TranspositionTable());
+    }
+
+    // The table is only read, so one can be shared between solvers
+    public Solver(DawgWriter initWriter, TranspositionTable initTable) {
+        writer = initWriter;
+        table = initTable;
+        moveLists = new int[1 << BitBoard.PEGS];
+        java.util.Arrays.fill(moveLists, -1);
+    }
+
+    public DawgWriter writer() { return writer; }
+
+    // Build the DAWG root holding the solutions for each of the empty pegs given
+    public int solve(int[] emptyPegs) {
+        int sibling = 0;
+        for (int index=emptyPegs.length-1; index>=0; index--) {
+            int state = BitBoard.FULL & ~(1 << emptyPegs[index]);
+            int child = solve(state);
+            if ( child != 0 ) {
+                sibling = writer.node(emptyPegs[index], false, child, sibling);
+            }
+        }
+
+        return writer.node(0, false, sibling, 0);
+    }
+
+    // Return the first node of the list of winning moves from state, 0 if there are none
+    public int solve(int state) {
+        if ( moveLists[state] >= 0 ) { return moveLists[state]; }
+
+        // Build the lists back to front so each node can point at its sibling
+        int fromSibling = 0;
+        int index = sortedJumps.length - 1;
+        while ( index >= 0 ) {
+            int from = BitBoard.from(sortedJumps[index]);
+
+            int toSibling = 0;
+            while ( index >= 0 && BitBoard.from(sortedJumps[index]) == from ) {
+                int jump = sortedJumps[index];
+                index--;
+                if ( ! BitBoard.canJump(state, jump) ) { continue; }
+
+                // Skip anything that can no longer reach one peg
+                int nextState = BitBoard.apply(state, jump);
+                if ( ! table.isSolvable(nextState) ) { continue; }
+
+                if ( Integer.bitCount(nextState) == 1 ) {
+                    toSibling = writer.node(BitBoard.to(jump), true, 0, toSibling);
+                } else {
+                    toSibling = writer.node(BitBoard.to(jump), false, solve(nextState), toSibling);
+                }
+            }
+
+            if ( toSibling != 0 ) {
+                fromSibling = writer.node(from, false, toSibling, fromSibling);
+            }
+        }
+
+        moveLists[state] = fromSibling;
+        return fromSibling;
+    }
+
+    // Regenerate the solutions file: Solver [-p] <file> [empty peg ...]
+    public static void main(String args[]) {
+        boolean parallel = args.length > 0 && args[0].equals("-p");
+        int first = parallel ? 1 : 0;
+        if ( args.length <= first ) {
+            System.err.println("Usage: solver.Solver [-p] <file> [empty peg ...]");
+            System.exit(1);
+        }
+
+        // The shipped file only holds one empty peg per class of symmetric
+        // games, the rest are found by rotating or reflecting the board
+        int[] emptyPegs = Symmetry.canonicalPegs();
+        if ( args.length > first + 1 ) {
+            emptyPegs = new int[args.length - first - 1];
+            for (int index=first+1; index<args.length; index++) {
+                emptyPegs[index-first-1] = Integer.parseInt(args[index]);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        DawgWriter writer;
+        int root;
+        if ( parallel ) {
+            ParallelSolver solver = new ParallelSolver();
+            root = solver.solve(emptyPegs);
+            writer = solver.writer();
+        } else {
+            Solver solver = new Solver();
+            root = solver.solve(emptyPegs);
+            writer = solver.writer();
+        }
+
+        try {
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(args[first]));
+            try {
+                writer.write(os, root);
+            } finally {
+                os.close();
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(Solver.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+
+        System.out.println("Wrote " + writer.size() + " nodes, " + writer.solutions(root)
+                + " solutions, to " + args[first]
+                + " in " + (System.currentTimeMillis() - start) + "ms");
+    }
+}
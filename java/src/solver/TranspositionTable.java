@@ -0,0 +1,68 @@
+/*  This file is part of PegboardApp.
+ *
+ *  Copyright 2012 Bryan Bueter
+ *
+ *  PegboardApp is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  PegboardApp is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with PegboardApp.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package solver;
+
+import game.*;
+
+// Number of solutions left from every board state, indexed by the BitBoard
+// state.  A jump always removes a peg, so filling the table in order of pegs
+// left only ever looks at entries that are already done, and the whole table
+// is one pass over the 2^15 states instead of a walk of every move order.
+public class TranspositionTable {
+    private long[] solutions;
+
+    public TranspositionTable() {
+        solutions = new long[1 << BitBoard.PEGS];
+
+        for (int pegs=1; pegs<=BitBoard.PEGS; pegs++) {
+            for (int state=0; state<solutions.length; state++) {
+                if ( Integer.bitCount(state) != pegs ) { continue; }
+
+                if ( pegs == 1 ) {
+                    solutions[state] = 1;
+                    continue;
+                }
+
+                long count = 0;
+                for (int jump=0; jump<BitBoard.JUMPS; jump++) {
+                    if ( BitBoard.canJump(state, jump) ) {
+                        count += solutions[BitBoard.apply(state, jump)];
+                    }
+                }
+                solutions[state] = count;
+            }
+        }
+    }
+
+    // Number of ways to finish with one peg left from state
+    public long solutions(int state) {
+        return solutions[state & BitBoard.FULL];
+    }
+
+    // Can one peg still be reached from state
+    public boolean isSolvable(int state) {
+        return solutions[state & BitBoard.FULL] != 0;
+    }
+
+    // Solutions for a game started with emptyPeg open
+    public long solutionsFrom(int emptyPeg) {
+        return solutions[BitBoard.FULL & ~(1 << emptyPeg)];
+    }
+}